@@ -0,0 +1,15 @@
+package android.os;
+
+/** Fake of the Android handler, see {@link Looper}. */
+public class Handler {
+    private final Looper looper;
+
+    public Handler(Looper looper) {
+        this.looper = looper;
+    }
+
+    public final boolean post(Runnable runnable) {
+        looper.post(runnable);
+        return true;
+    }
+}
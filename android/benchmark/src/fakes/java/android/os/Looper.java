@@ -0,0 +1,26 @@
+package android.os;
+
+/** Fake of the Android looper: runnables posted to its handlers run when {@link #runPending()} is called. */
+public final class Looper {
+    private static final Looper MAIN = new Looper();
+
+    private final java.util.ArrayDeque<Runnable> pending = new java.util.ArrayDeque<>();
+
+    private Looper() {}
+
+    public static Looper getMainLooper() {
+        return MAIN;
+    }
+
+    void post(Runnable runnable) {
+        pending.add(runnable);
+    }
+
+    /** Runs every posted runnable, like one turn of the main loop. */
+    public void runPending() {
+        Runnable runnable;
+        while ((runnable = pending.poll()) != null) {
+            runnable.run();
+        }
+    }
+}
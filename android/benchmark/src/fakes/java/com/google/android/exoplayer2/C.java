@@ -0,0 +1,11 @@
+package com.google.android.exoplayer2;
+
+/** Fake of the ExoPlayer constants used by the benchmarked code. */
+public final class C {
+    public static final int TRACK_TYPE_AUDIO = 1;
+    public static final int TRACK_TYPE_VIDEO = 2;
+    public static final int TRACK_TYPE_TEXT = 3;
+    public static final int TRACK_TYPE_METADATA = 4;
+
+    private C() {}
+}
@@ -0,0 +1,26 @@
+package com.google.android.exoplayer2;
+
+/** Fake of the ExoPlayer format, with only the fields read by the benchmarked code. */
+public final class Format {
+    public static final int NO_VALUE = -1;
+
+    public final String id;
+    public final String label;
+    public final String codecs;
+    public final int bitrate;
+    public final int width;
+    public final int height;
+    public final int rotationDegrees;
+    public final String language;
+
+    public Format(String id, String label, String codecs, int bitrate, int width, int height, String language) {
+        this.id = id;
+        this.label = label;
+        this.codecs = codecs;
+        this.bitrate = bitrate;
+        this.width = width;
+        this.height = height;
+        this.rotationDegrees = 0;
+        this.language = language;
+    }
+}
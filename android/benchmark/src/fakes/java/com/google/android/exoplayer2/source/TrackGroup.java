@@ -0,0 +1,18 @@
+package com.google.android.exoplayer2.source;
+
+import com.google.android.exoplayer2.Format;
+
+/** Fake of the ExoPlayer track group. */
+public final class TrackGroup {
+    public final int length;
+    private final Format[] formats;
+
+    public TrackGroup(Format... formats) {
+        this.formats = formats;
+        length = formats.length;
+    }
+
+    public Format getFormat(int index) {
+        return formats[index];
+    }
+}
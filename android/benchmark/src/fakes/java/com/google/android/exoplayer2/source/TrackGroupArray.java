@@ -0,0 +1,16 @@
+package com.google.android.exoplayer2.source;
+
+/** Fake of the ExoPlayer track group array. */
+public final class TrackGroupArray {
+    public final int length;
+    private final TrackGroup[] trackGroups;
+
+    public TrackGroupArray(TrackGroup... trackGroups) {
+        this.trackGroups = trackGroups;
+        length = trackGroups.length;
+    }
+
+    public TrackGroup get(int index) {
+        return trackGroups[index];
+    }
+}
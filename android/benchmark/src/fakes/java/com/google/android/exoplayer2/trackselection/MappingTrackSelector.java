@@ -0,0 +1,30 @@
+package com.google.android.exoplayer2.trackselection;
+
+import com.google.android.exoplayer2.source.TrackGroupArray;
+
+/** Fake of the ExoPlayer mapping track selector, declaring only the mapped track info. */
+public abstract class MappingTrackSelector {
+    private MappingTrackSelector() {}
+
+    public static final class MappedTrackInfo {
+        private final int[] rendererTrackTypes;
+        private final TrackGroupArray[] rendererTrackGroups;
+
+        public MappedTrackInfo(int[] rendererTrackTypes, TrackGroupArray[] rendererTrackGroups) {
+            this.rendererTrackTypes = rendererTrackTypes;
+            this.rendererTrackGroups = rendererTrackGroups;
+        }
+
+        public int getRendererCount() {
+            return rendererTrackTypes.length;
+        }
+
+        public int getRendererType(int rendererIndex) {
+            return rendererTrackTypes[rendererIndex];
+        }
+
+        public TrackGroupArray getTrackGroups(int rendererIndex) {
+            return rendererTrackGroups[rendererIndex];
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.google.android.exoplayer2.ui;
+
+import com.google.android.exoplayer2.Format;
+
+/** Fake of the ExoPlayer track name provider. */
+public interface TrackNameProvider {
+    String getTrackName(Format format);
+}
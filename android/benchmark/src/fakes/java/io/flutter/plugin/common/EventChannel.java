@@ -0,0 +1,20 @@
+package io.flutter.plugin.common;
+
+/** Fake of the Flutter event channel, declaring only the sink and stream handler interfaces. */
+public final class EventChannel {
+    private EventChannel() {}
+
+    public interface EventSink {
+        void success(Object event);
+
+        void error(String errorCode, String errorMessage, Object errorDetails);
+
+        void endOfStream();
+    }
+
+    public interface StreamHandler {
+        void onListen(Object arguments, EventSink events);
+
+        void onCancel(Object arguments);
+    }
+}
@@ -0,0 +1,60 @@
+package com.kushal.player_plugin;
+
+import com.google.android.exoplayer2.Format;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** Construction of the {@code videoEvents} events, as maps and in their binary encoding. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EventEncodingBenchmark {
+    private final EventCodec eventCodec = new EventCodec();
+    private final Format videoFormat = TrackLadders.videoFormat();
+    private final TrackDescriptors tracks =
+            TrackDescriptors.build(TrackLadders.buildMappedTrackInfo(), TrackLadders.TRACK_NAME_PROVIDER);
+    private long position;
+
+    @Benchmark
+    public Map<String, Object> tickMap() {
+        position += 250;
+        return EventMaps.tick(position, position + 30_000, 5_000_000, true, 30_000, 12 * 1024 * 1024, -1);
+    }
+
+    @Benchmark
+    public byte[] tickBinary() {
+        position += 250;
+        return eventCodec.encodeTick(position, position + 30_000, 5_000_000, true, 30_000, 12 * 1024 * 1024, -1);
+    }
+
+    @Benchmark
+    public Map<String, Object> bufferingUpdateMap() {
+        position += 250;
+        return EventMaps.bufferingUpdate(position + 30_000, 30_000, 12 * 1024 * 1024);
+    }
+
+    @Benchmark
+    public byte[] bufferingUpdateBinary() {
+        position += 250;
+        return eventCodec.encodeBufferingUpdate(0, position + 30_000, 30_000, 12 * 1024 * 1024);
+    }
+
+    @Benchmark
+    public Map<String, Object> initializedMap() {
+        return EventMaps.initialized(3_600_000, videoFormat, tracks);
+    }
+}
@@ -0,0 +1,120 @@
+package com.kushal.player_plugin;
+
+import android.os.Looper;
+
+import io.flutter.plugin.common.EventChannel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queuing and delivery of events through {@link QueuingEventSink}. Each invocation queues a burst of
+ * {@link #BURST} events, as produced between two turns of the main loop, then delivers them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class QueuingEventSinkBenchmark {
+    private static final int BURST = 32;
+
+    private final Looper mainLooper = Looper.getMainLooper();
+    private final EventCodec eventCodec = new EventCodec();
+    private QueuingEventSink sink;
+    private Map<String, Object> tickMap;
+    private Map<String, Object> bufferingUpdateMap;
+    private Map<String, Object> completedMap;
+    private byte[] tickBinary;
+
+    @Setup
+    public void setUp(final Blackhole blackhole) {
+        sink = new QueuingEventSink();
+        sink.setDelegate(new EventChannel.EventSink() {
+            @Override
+            public void success(Object event) {
+                blackhole.consume(event);
+            }
+
+            @Override
+            public void error(String errorCode, String errorMessage, Object errorDetails) {
+                blackhole.consume(errorCode);
+            }
+
+            @Override
+            public void endOfStream() {
+            }
+        });
+        tickMap = EventMaps.tick(1_000, 31_000, 5_000_000, true, 30_000, 12 * 1024 * 1024, -1);
+        bufferingUpdateMap = EventMaps.bufferingUpdate(31_000, 30_000, 12 * 1024 * 1024);
+        completedMap = new HashMap<>();
+        completedMap.put("event", "completed");
+        tickBinary = eventCodec.encodeTick(1_000, 31_000, 5_000_000, true, 30_000, 12 * 1024 * 1024, -1);
+    }
+
+    /** Ticks only, which coalesce down to one delivered event per burst. */
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void coalescedTicks() {
+        for (int i = 0; i < BURST; i++) {
+            sink.success(tickMap);
+        }
+        mainLooper.runPending();
+    }
+
+    /** Binary ticks, whose type is read from their tag. */
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void coalescedBinaryTicks() {
+        for (int i = 0; i < BURST; i++) {
+            sink.success(tickBinary);
+        }
+        mainLooper.runPending();
+    }
+
+    /** Ticks, buffering updates and undroppable events interleaved. */
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void mixedEvents() {
+        for (int i = 0; i < BURST; i++) {
+            switch (i % 4) {
+                case 0:
+                case 1:
+                    sink.success(tickMap);
+                    break;
+                case 2:
+                    sink.success(bufferingUpdateMap);
+                    break;
+                default:
+                    sink.success(completedMap);
+                    break;
+            }
+        }
+        mainLooper.runPending();
+    }
+
+    /** Four times the sink capacity of undroppable events, which must all be delivered. */
+    @Benchmark
+    @OperationsPerInvocation(4 * QueuingEventSink.DEFAULT_CAPACITY)
+    public void overflow() {
+        for (int i = 0; i < 4 * QueuingEventSink.DEFAULT_CAPACITY; i++) {
+            sink.success(completedMap);
+        }
+        mainLooper.runPending();
+    }
+}
@@ -0,0 +1,31 @@
+package com.kushal.player_plugin;
+
+import com.google.android.exoplayer2.trackselection.MappingTrackSelector.MappedTrackInfo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Track enumeration done once per player when it first becomes ready ({@code getDefaultAudioAndVideo}). */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TrackDescriptorsBenchmark {
+    private final MappedTrackInfo mappedTrackInfo = TrackLadders.buildMappedTrackInfo();
+
+    @Benchmark
+    public TrackDescriptors build() {
+        return TrackDescriptors.build(mappedTrackInfo, TrackLadders.TRACK_NAME_PROVIDER);
+    }
+}
@@ -0,0 +1,64 @@
+package com.kushal.player_plugin;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.source.TrackGroup;
+import com.google.android.exoplayer2.source.TrackGroupArray;
+import com.google.android.exoplayer2.trackselection.MappingTrackSelector.MappedTrackInfo;
+import com.google.android.exoplayer2.ui.TrackNameProvider;
+
+/**
+ * Synthetic track ladders the size of a real multi-language adaptive stream: an eight rung video
+ * ladder, six audio languages in two codecs each and twelve subtitle languages, behind video,
+ * audio, text and metadata renderers.
+ */
+final class TrackLadders {
+    static final String[] LANGUAGES = {
+            "en", "es", "fr", "de", "it", "pt", "ja", "ko", "zh", "ar", "hi", "ru"};
+    private static final int[][] VIDEO_LADDER = {
+            {426, 240, 300_000}, {640, 360, 700_000}, {854, 480, 1_200_000}, {1280, 720, 2_500_000},
+            {1280, 720, 3_500_000}, {1920, 1080, 5_000_000}, {1920, 1080, 8_000_000}, {3840, 2160, 16_000_000}};
+    private static final int AUDIO_LANGUAGES = 6;
+
+    static final TrackNameProvider TRACK_NAME_PROVIDER = new TrackNameProvider() {
+        @Override
+        public String getTrackName(Format format) {
+            return format.language != null ? format.language : format.height + "p";
+        }
+    };
+
+    private TrackLadders() {}
+
+    static MappedTrackInfo buildMappedTrackInfo() {
+        Format[] video = new Format[VIDEO_LADDER.length];
+        for (int i = 0; i < video.length; i++) {
+            int[] rung = VIDEO_LADDER[i];
+            video[i] = new Format("video/" + i, null, "avc1.640028", rung[2], rung[0], rung[1], null);
+        }
+        TrackGroup[] audio = new TrackGroup[AUDIO_LANGUAGES];
+        for (int i = 0; i < audio.length; i++) {
+            audio[i] = new TrackGroup(
+                    new Format("audio/aac/" + i, null, "mp4a.40.2", 128_000, Format.NO_VALUE, Format.NO_VALUE,
+                            LANGUAGES[i]),
+                    new Format("audio/ec3/" + i, null, "ec-3", 384_000, Format.NO_VALUE, Format.NO_VALUE,
+                            LANGUAGES[i]));
+        }
+        TrackGroup[] text = new TrackGroup[LANGUAGES.length];
+        for (int i = 0; i < text.length; i++) {
+            text[i] = new TrackGroup(new Format("text/" + i, "Subtitles " + LANGUAGES[i], "wvtt", Format.NO_VALUE,
+                    Format.NO_VALUE, Format.NO_VALUE, LANGUAGES[i]));
+        }
+        return new MappedTrackInfo(
+                new int[] {C.TRACK_TYPE_VIDEO, C.TRACK_TYPE_AUDIO, C.TRACK_TYPE_TEXT, C.TRACK_TYPE_METADATA},
+                new TrackGroupArray[] {
+                        new TrackGroupArray(new TrackGroup(video)),
+                        new TrackGroupArray(audio),
+                        new TrackGroupArray(text),
+                        new TrackGroupArray()});
+    }
+
+    static Format videoFormat() {
+        int[] rung = VIDEO_LADDER[5];
+        return new Format("video/5", null, "avc1.640028", rung[2], rung[0], rung[1], null);
+    }
+}
@@ -0,0 +1,299 @@
+package com.kushal.player_plugin;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Replays bandwidth traces against the {@link AbrStrategy} implementations of the plugin, and
+ * reports rebuffering, average bitrate and switches for each, so that strategies can be compared
+ * without devices.
+ *
+ * <p>A trace is a text file with one {@code <seconds> <megabits per second>} sample per line, the
+ * format of the cooked FCC and HSDPA traces used in ABR research. The throughput of a sample holds
+ * until the time of the next one, and the trace loops if the content outlasts it. Lines starting
+ * with {@code #} are comments.
+ *
+ * <p>The player is modelled after ExoPlayer's defaults: chunks are loaded one at a time, loading
+ * pauses while 50 seconds are buffered, playback starts with 2.5 seconds buffered and resumes with
+ * 5 seconds after rebuffering, and the throughput estimate is the weighted median of
+ * {@code DefaultBandwidthMeter}.
+ *
+ * <pre>
+ *   AbrSimulator [--ladder=kbps,kbps,...] [--segment-ms=4000] [--segments=n] trace|directory...
+ * </pre>
+ */
+public final class AbrSimulator {
+    private static final int[] DEFAULT_LADDER_KBPS = {4300, 2850, 1850, 1200, 750, 400};
+    private static final long DEFAULT_SEGMENT_MS = 4000;
+    private static final long MAX_BUFFER_MS = 50_000;
+    private static final long BUFFER_FOR_PLAYBACK_MS = 2500;
+    private static final long BUFFER_FOR_PLAYBACK_AFTER_REBUFFER_MS = 5000;
+    private static final long REQUEST_LATENCY_MS = 80;
+    private static final long INITIAL_BITRATE_ESTIMATE = 1_000_000;
+
+    private static final String[] STRATEGIES = {"throughput", "bola", "hybrid"};
+
+    /** The outcome of playing a trace with one strategy. */
+    static final class Result {
+        long startupMs;
+        long rebufferMs;
+        int rebuffers;
+        long averageBitrate;
+        int switches;
+    }
+
+    /** Throughput over time, from a trace file. */
+    static final class Trace {
+        final String name;
+        private final long[] timesMs;
+        private final long[] bitrates;
+        private final long durationMs;
+
+        Trace(String name, long[] timesMs, long[] bitrates) {
+            this.name = name;
+            this.timesMs = timesMs;
+            this.bitrates = bitrates;
+            long lastIntervalMs = timesMs.length > 1 ? timesMs[timesMs.length - 1] - timesMs[timesMs.length - 2] : 1000;
+            durationMs = timesMs[timesMs.length - 1] + lastIntervalMs;
+        }
+
+        static Trace read(File file) throws IOException {
+            List<long[]> samples = new ArrayList<>();
+            BufferedReader reader = new BufferedReader(new FileReader(file));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#")) {
+                        continue;
+                    }
+                    String[] fields = line.split("\\s+");
+                    samples.add(new long[] {
+                            Math.round(Double.parseDouble(fields[0]) * 1000),
+                            Math.round(Double.parseDouble(fields[1]) * 1_000_000)});
+                }
+            } finally {
+                reader.close();
+            }
+            if (samples.isEmpty()) {
+                throw new IOException("No samples in " + file);
+            }
+            long startMs = samples.get(0)[0];
+            long[] timesMs = new long[samples.size()];
+            long[] bitrates = new long[samples.size()];
+            boolean hasThroughput = false;
+            for (int i = 0; i < samples.size(); i++) {
+                timesMs[i] = samples.get(i)[0] - startMs;
+                bitrates[i] = samples.get(i)[1];
+                if (i > 0 && timesMs[i] <= timesMs[i - 1]) {
+                    throw new IOException("Sample times do not increase at sample " + (i + 1) + " of " + file);
+                }
+                if (bitrates[i] < 0) {
+                    throw new IOException("Negative throughput at sample " + (i + 1) + " of " + file);
+                }
+                hasThroughput |= bitrates[i] > 0;
+            }
+            // A transfer would never complete.
+            if (!hasThroughput) {
+                throw new IOException("No throughput in " + file);
+            }
+            return new Trace(file.getName(), timesMs, bitrates);
+        }
+
+        /** Returns how long transferring {@code bits} takes when starting at {@code startMs}. */
+        long getTransferTimeMs(long startMs, long bits) {
+            long nowMs = startMs;
+            double remainingBits = bits;
+            while (true) {
+                long offsetMs = nowMs % durationMs;
+                int index = Arrays.binarySearch(timesMs, offsetMs);
+                if (index < 0) {
+                    index = -index - 2;
+                }
+                long sampleEndMs = index + 1 < timesMs.length ? timesMs[index + 1] : durationMs;
+                long intervalMs = sampleEndMs - offsetMs;
+                double intervalBits = bitrates[index] * intervalMs / 1000.0;
+                if (intervalBits >= remainingBits) {
+                    return nowMs - startMs + (long) Math.ceil(remainingBits * 1000 / bitrates[index]);
+                }
+                remainingBits -= intervalBits;
+                nowMs += intervalMs;
+            }
+        }
+    }
+
+    /** The sliding weighted median of {@code DefaultBandwidthMeter}. */
+    static final class BandwidthEstimator {
+        private static final int MAX_WEIGHT = 2000;
+
+        private final List<double[]> samples = new ArrayList<>();
+        private double totalWeight;
+        private long estimate = INITIAL_BITRATE_ESTIMATE;
+
+        void addSample(long bits, long elapsedMs) {
+            double weight = Math.sqrt(bits / 8.0);
+            samples.add(new double[] {weight, bits * 1000.0 / Math.max(1, elapsedMs)});
+            totalWeight += weight;
+            while (totalWeight > MAX_WEIGHT) {
+                double excess = totalWeight - MAX_WEIGHT;
+                double[] oldest = samples.get(0);
+                if (oldest[0] <= excess) {
+                    samples.remove(0);
+                    totalWeight -= oldest[0];
+                } else {
+                    oldest[0] -= excess;
+                    totalWeight -= excess;
+                }
+            }
+            List<double[]> sorted = new ArrayList<>(samples);
+            Collections.sort(sorted, new Comparator<double[]>() {
+                @Override
+                public int compare(double[] a, double[] b) {
+                    return Double.compare(a[1], b[1]);
+                }
+            });
+            double desiredWeight = totalWeight / 2;
+            double accumulatedWeight = 0;
+            for (double[] sample : sorted) {
+                accumulatedWeight += sample[0];
+                if (accumulatedWeight >= desiredWeight) {
+                    estimate = (long) sample[1];
+                    break;
+                }
+            }
+        }
+
+        long getEstimate() {
+            return estimate;
+        }
+    }
+
+    static Result simulate(AbrStrategy strategy, int[] ladder, long segmentMs, int segments, Trace trace) {
+        Result result = new Result();
+        BandwidthEstimator estimator = new BandwidthEstimator();
+        long clockMs = 0;
+        long bufferMs = 0;
+        boolean playing = false;
+        boolean started = false;
+        int selectedIndex = -1;
+        long totalBits = 0;
+        for (int segment = 0; segment < segments; segment++) {
+            if (playing && bufferMs + segmentMs > MAX_BUFFER_MS) {
+                long waitMs = bufferMs + segmentMs - MAX_BUFFER_MS;
+                clockMs += waitMs;
+                bufferMs -= waitMs;
+            }
+            int index = strategy.selectIndex(ladder, selectedIndex, bufferMs * 1000, estimator.getEstimate());
+            if (selectedIndex >= 0 && index != selectedIndex) {
+                result.switches++;
+            }
+            selectedIndex = index;
+            long bits = ladder[index] * segmentMs / 1000;
+            long transferMs = trace.getTransferTimeMs(clockMs + REQUEST_LATENCY_MS, bits);
+            long elapsedMs = REQUEST_LATENCY_MS + transferMs;
+            clockMs += elapsedMs;
+            if (playing) {
+                if (elapsedMs > bufferMs) {
+                    result.rebufferMs += elapsedMs - bufferMs;
+                    result.rebuffers++;
+                    bufferMs = 0;
+                    playing = false;
+                } else {
+                    bufferMs -= elapsedMs;
+                }
+            } else if (started) {
+                result.rebufferMs += elapsedMs;
+            }
+            bufferMs += segmentMs;
+            totalBits += bits;
+            estimator.addSample(bits, transferMs);
+            if (!playing && bufferMs >= (started ? BUFFER_FOR_PLAYBACK_AFTER_REBUFFER_MS : BUFFER_FOR_PLAYBACK_MS)) {
+                playing = true;
+                if (!started) {
+                    started = true;
+                    result.startupMs = clockMs;
+                }
+            }
+        }
+        result.averageBitrate = totalBits * 1000 / (segments * segmentMs);
+        return result;
+    }
+
+    static AbrStrategy createStrategy(String name) {
+        switch (name) {
+            case "throughput":
+                return new ThroughputAbrStrategy();
+            case "bola":
+                return new BolaAbrStrategy();
+            case "hybrid":
+                return new HybridAbrStrategy();
+            default:
+                throw new IllegalArgumentException("Unknown strategy " + name);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int[] ladder = new int[DEFAULT_LADDER_KBPS.length];
+        for (int i = 0; i < ladder.length; i++) {
+            ladder[i] = DEFAULT_LADDER_KBPS[i] * 1000;
+        }
+        long segmentMs = DEFAULT_SEGMENT_MS;
+        int segments = 0;
+        List<File> files = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--ladder=")) {
+                String[] values = arg.substring("--ladder=".length()).split(",");
+                ladder = new int[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    ladder[i] = Integer.parseInt(values[i].trim()) * 1000;
+                }
+                // Strategies expect the highest bitrate first.
+                Arrays.sort(ladder);
+                for (int i = 0; i < ladder.length / 2; i++) {
+                    int swap = ladder[i];
+                    ladder[i] = ladder[ladder.length - 1 - i];
+                    ladder[ladder.length - 1 - i] = swap;
+                }
+            } else if (arg.startsWith("--segment-ms=")) {
+                segmentMs = Long.parseLong(arg.substring("--segment-ms=".length()));
+            } else if (arg.startsWith("--segments=")) {
+                segments = Integer.parseInt(arg.substring("--segments=".length()));
+            } else {
+                File file = new File(arg);
+                File[] children = file.listFiles();
+                if (children != null) {
+                    Arrays.sort(children);
+                    files.addAll(Arrays.asList(children));
+                } else {
+                    files.add(file);
+                }
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("Usage: AbrSimulator [--ladder=kbps,...] [--segment-ms=ms] [--segments=n] trace|directory...");
+            System.exit(2);
+        }
+
+        System.out.println(String.format(Locale.US, "%-28s %-11s %10s %9s %9s %9s %8s",
+                "trace", "strategy", "startup_s", "rebuf_s", "rebufs", "avg_kbps", "switches"));
+        for (File file : files) {
+            Trace trace = Trace.read(file);
+            // Without a count, the content lasts as long as the trace.
+            int traceSegments = segments > 0 ? segments : (int) Math.max(1, trace.durationMs / segmentMs);
+            for (String name : STRATEGIES) {
+                Result result = simulate(createStrategy(name), ladder, segmentMs, traceSegments, trace);
+                System.out.println(String.format(Locale.US, "%-28s %-11s %10.2f %9.2f %9d %9d %8d",
+                        trace.name, name, result.startupMs / 1000.0, result.rebufferMs / 1000.0, result.rebuffers,
+                        result.averageBitrate / 1000, result.switches));
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.kushal.player_plugin;
+
+/**
+ * The rules of ExoPlayer's {@code AdaptiveTrackSelection} with its default parameters, as a baseline
+ * for the simulator.
+ *
+ * <p>The ideal track is the highest one within 70% of the throughput estimate. Switching up to it
+ * waits until 10 seconds are buffered, and switching down is skipped while 25 seconds are buffered.
+ */
+final class ThroughputAbrStrategy implements AbrStrategy {
+    private static final float BANDWIDTH_FRACTION = 0.7f;
+    private static final long MIN_DURATION_FOR_QUALITY_INCREASE_US = 10_000_000;
+    private static final long MAX_DURATION_FOR_QUALITY_DECREASE_US = 25_000_000;
+
+    @Override
+    public int selectIndex(int[] bitrates, int selectedIndex, long bufferedDurationUs, long bitrateEstimate) {
+        long effectiveBitrate = (long) (bitrateEstimate * BANDWIDTH_FRACTION);
+        int idealIndex = bitrates.length - 1;
+        for (int i = 0; i < bitrates.length; i++) {
+            if (bitrates[i] <= effectiveBitrate) {
+                idealIndex = i;
+                break;
+            }
+        }
+        if (selectedIndex < 0) {
+            return idealIndex;
+        }
+        if (idealIndex < selectedIndex && bufferedDurationUs < MIN_DURATION_FOR_QUALITY_INCREASE_US) {
+            return selectedIndex;
+        }
+        if (idealIndex > selectedIndex && bufferedDurationUs >= MAX_DURATION_FOR_QUALITY_DECREASE_US) {
+            return selectedIndex;
+        }
+        return idealIndex;
+    }
+}
@@ -0,0 +1,21 @@
+package com.kushal.player_plugin;
+
+/**
+ * Chooses the quality of the next chunk to load from the ladder of an adaptive track group.
+ *
+ * <p>Strategies only see plain numbers, and no ExoPlayer types, so that the ABR simulator of the
+ * benchmark module can replay recorded bandwidth traces against them on a plain JVM. An instance may
+ * keep state between calls, and serves a single track selection on the {@link PlaybackThread}.
+ */
+interface AbrStrategy {
+    /**
+     * Returns the index in {@code bitrates} of the track to load next.
+     *
+     * @param bitrates The bitrates of the tracks in bits per second, in descending order.
+     * @param selectedIndex The index of the track selected for the previous chunk, or -1 before the
+     *     first chunk.
+     * @param bufferedDurationUs The duration of media buffered ahead of the playback position.
+     * @param bitrateEstimate The estimated network throughput in bits per second.
+     */
+    int selectIndex(int[] bitrates, int selectedIndex, long bufferedDurationUs, long bitrateEstimate);
+}
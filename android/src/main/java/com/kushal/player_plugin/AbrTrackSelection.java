@@ -0,0 +1,135 @@
+package com.kushal.player_plugin;
+
+import android.os.SystemClock;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.source.TrackGroup;
+import com.google.android.exoplayer2.source.chunk.MediaChunk;
+import com.google.android.exoplayer2.source.chunk.MediaChunkIterator;
+import com.google.android.exoplayer2.trackselection.AdaptiveTrackSelection;
+import com.google.android.exoplayer2.trackselection.BaseTrackSelection;
+import com.google.android.exoplayer2.trackselection.TrackSelection;
+import com.google.android.exoplayer2.trackselection.TrackSelectionUtil;
+import com.google.android.exoplayer2.upstream.BandwidthMeter;
+
+import java.util.List;
+
+/**
+ * An adaptive {@link TrackSelection} which delegates the choice of track to an {@link AbrStrategy}.
+ *
+ * <p>Tracks are ordered by descending bitrate, as the strategies expect. Blacklisted tracks are
+ * skipped in favour of the next lower track.
+ */
+final class AbrTrackSelection extends BaseTrackSelection {
+    static final String STRATEGY_THROUGHPUT = "throughput";
+    static final String STRATEGY_BOLA = "bola";
+    static final String STRATEGY_HYBRID = "hybrid";
+
+    /**
+     * Creates selections with the strategy set with {@link #setStrategy}. Throughput selection, the
+     * default, is ExoPlayer's own {@link AdaptiveTrackSelection}.
+     */
+    static final class Factory implements TrackSelection.Factory {
+        private final AdaptiveTrackSelection.Factory throughputFactory = new AdaptiveTrackSelection.Factory();
+        private volatile String strategy = STRATEGY_THROUGHPUT;
+
+        /** Sets the strategy of the selections created from now on. */
+        void setStrategy(String strategy) {
+            this.strategy = strategy;
+        }
+
+        @Override
+        public TrackSelection[] createTrackSelections(TrackSelection.Definition[] definitions, final BandwidthMeter bandwidthMeter) {
+            final String strategy = this.strategy;
+            if (STRATEGY_THROUGHPUT.equals(strategy)) {
+                return throughputFactory.createTrackSelections(definitions, bandwidthMeter);
+            }
+            return TrackSelectionUtil.createTrackSelectionsForDefinitions(definitions,
+                    new TrackSelectionUtil.AdaptiveTrackSelectionFactory() {
+                        @Override
+                        public TrackSelection createAdaptiveTrackSelection(TrackSelection.Definition definition) {
+                            return new AbrTrackSelection(definition.group, definition.tracks,
+                                    createStrategy(strategy), bandwidthMeter);
+                        }
+                    });
+        }
+    }
+
+    private final AbrStrategy strategy;
+    private final BandwidthMeter bandwidthMeter;
+    private final int[] bitrates;
+    private int selectedIndex = -1;
+    private int selectionReason = C.SELECTION_REASON_INITIAL;
+
+    private AbrTrackSelection(TrackGroup group, int[] tracks, AbrStrategy strategy, BandwidthMeter bandwidthMeter) {
+        super(group, tracks);
+        this.strategy = strategy;
+        this.bandwidthMeter = bandwidthMeter;
+        bitrates = new int[length];
+        for (int i = 0; i < length; i++) {
+            bitrates[i] = getFormat(i).bitrate;
+        }
+        selectedIndex = selectIndex(/* bufferedDurationUs= */ 0);
+    }
+
+    /**
+     * Returns {@code name} if it names a strategy, or {@link #STRATEGY_THROUGHPUT} if it is null.
+     *
+     * @throws IllegalArgumentException if it names no strategy.
+     */
+    static String parseStrategy(Object name) {
+        if (name == null) {
+            return STRATEGY_THROUGHPUT;
+        }
+        if (STRATEGY_THROUGHPUT.equals(name) || STRATEGY_BOLA.equals(name) || STRATEGY_HYBRID.equals(name)) {
+            return (String) name;
+        }
+        throw new IllegalArgumentException("Unknown ABR strategy " + name);
+    }
+
+    private static AbrStrategy createStrategy(String name) {
+        return STRATEGY_BOLA.equals(name) ? new BolaAbrStrategy() : new HybridAbrStrategy();
+    }
+
+    @Override
+    public void updateSelectedTrack(long playbackPositionUs, long bufferedDurationUs, long availableDurationUs,
+                                    List<? extends MediaChunk> queue, MediaChunkIterator[] mediaChunkIterators) {
+        int previousIndex = selectedIndex;
+        selectedIndex = selectIndex(bufferedDurationUs);
+        if (selectedIndex != previousIndex) {
+            selectionReason = C.SELECTION_REASON_ADAPTIVE;
+        }
+    }
+
+    private int selectIndex(long bufferedDurationUs) {
+        int index = strategy.selectIndex(bitrates, selectedIndex, bufferedDurationUs,
+                bandwidthMeter.getBitrateEstimate());
+        long nowMs = SystemClock.elapsedRealtime();
+        for (int i = index; i < length; i++) {
+            if (!isBlacklisted(i, nowMs)) {
+                return i;
+            }
+        }
+        for (int i = index - 1; i >= 0; i--) {
+            if (!isBlacklisted(i, nowMs)) {
+                return i;
+            }
+        }
+        return index;
+    }
+
+    @Override
+    public int getSelectedIndex() {
+        return selectedIndex;
+    }
+
+    @Override
+    public int getSelectionReason() {
+        return selectionReason;
+    }
+
+    @Override
+    public Object getSelectionData() {
+        return null;
+    }
+}
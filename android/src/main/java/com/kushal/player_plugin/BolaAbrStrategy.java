@@ -0,0 +1,92 @@
+package com.kushal.player_plugin;
+
+/**
+ * A buffer-based {@link AbrStrategy} after BOLA (Spiteri et al., "BOLA: Near-Optimal Bitrate
+ * Adaptation for Online Videos"), as tuned by dash.js.
+ *
+ * <p>The quality follows the buffer level: the lowest track is chosen with
+ * {@link #MINIMUM_BUFFER_S} buffered, the highest once the stable buffer is reached, and the
+ * logarithmic utility of the bitrates decides in between. Since throughput samples only matter
+ * through the buffer, short dips in throughput do not cause switches.
+ *
+ * <p>Two throughput rules keep BOLA from its known weaknesses. Until the buffer has grown enough
+ * for BOLA to choose at least the sustainable track, the sustainable track is chosen, so that
+ * startup does not play the lowest quality. And as in BOLA-O, BOLA does not switch up past both the
+ * sustainable and the previous track, which would oscillate between the two tracks around the
+ * throughput.
+ */
+final class BolaAbrStrategy implements AbrStrategy {
+    /** The buffer level at which the lowest track is chosen. */
+    static final double MINIMUM_BUFFER_S = 10;
+    /** The buffer level from which the highest track is chosen, without counting the ladder size. */
+    private static final double STABLE_BUFFER_S = 12;
+    private static final double BUFFER_PER_LEVEL_S = 2;
+    /** The fraction of the throughput estimate a track is considered sustainable at. */
+    static final float BANDWIDTH_FRACTION = 0.7f;
+
+    private boolean steady;
+
+    @Override
+    public int selectIndex(int[] bitrates, int selectedIndex, long bufferedDurationUs, long bitrateEstimate) {
+        int sustainableIndex = getSustainableIndex(bitrates, bitrateEstimate);
+        double bufferS = bufferedDurationUs / 1_000_000.0;
+        if (!steady) {
+            if (getBufferIndex(bitrates, bufferS) > sustainableIndex) {
+                return sustainableIndex;
+            }
+            steady = true;
+        }
+        return selectSteadyIndex(bitrates, selectedIndex, bufferS, sustainableIndex);
+    }
+
+    /** Returns the BOLA choice at {@code bufferS}, with the BOLA-O rule against oscillations. */
+    static int selectSteadyIndex(int[] bitrates, int selectedIndex, double bufferS, int sustainableIndex) {
+        int index = getBufferIndex(bitrates, bufferS);
+        if (selectedIndex >= 0 && index < selectedIndex && index < sustainableIndex) {
+            // Lower indices are higher qualities.
+            index = Math.max(index, Math.min(sustainableIndex, selectedIndex));
+        }
+        return index;
+    }
+
+    /** Returns the index of the track maximizing the BOLA objective at {@code bufferS}. */
+    static int getBufferIndex(int[] bitrates, double bufferS) {
+        int lowest = bitrates.length - 1;
+        if (lowest <= 0) {
+            return 0;
+        }
+        double lowestBitrate = Math.max(1, bitrates[lowest]);
+        // Utilities are shifted so that the lowest track has a utility of 1.
+        double highestUtility = Math.log(Math.max(1, bitrates[0]) / lowestBitrate) + 1;
+        if (highestUtility <= 1) {
+            return lowest;
+        }
+        double stableBufferS = Math.max(STABLE_BUFFER_S, MINIMUM_BUFFER_S + BUFFER_PER_LEVEL_S * bitrates.length);
+        double gp = (highestUtility - 1) / (stableBufferS / MINIMUM_BUFFER_S - 1);
+        double vp = MINIMUM_BUFFER_S / gp;
+        int bestIndex = lowest;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int i = lowest; i >= 0; i--) {
+            double bitrate = Math.max(1, bitrates[i]);
+            double utility = Math.log(bitrate / lowestBitrate) + 1;
+            double score = (vp * (utility + gp) - bufferS) / bitrate;
+            // Ties go to the higher quality.
+            if (score >= bestScore) {
+                bestScore = score;
+                bestIndex = i;
+            }
+        }
+        return bestIndex;
+    }
+
+    /** Returns the index of the highest track sustainable at {@code bitrateEstimate}, or the lowest. */
+    static int getSustainableIndex(int[] bitrates, long bitrateEstimate) {
+        long effectiveBitrate = (long) (bitrateEstimate * BANDWIDTH_FRACTION);
+        for (int i = 0; i < bitrates.length; i++) {
+            if (bitrates[i] <= effectiveBitrate) {
+                return i;
+            }
+        }
+        return bitrates.length - 1;
+    }
+}
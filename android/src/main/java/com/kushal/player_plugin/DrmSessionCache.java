@@ -0,0 +1,205 @@
+package com.kushal.player_plugin;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.os.Handler;
+import android.util.Base64;
+import android.util.Pair;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.drm.DefaultDrmSessionManager;
+import com.google.android.exoplayer2.drm.DrmInitData;
+import com.google.android.exoplayer2.drm.DrmSession;
+import com.google.android.exoplayer2.drm.ExoMediaCrypto;
+import com.google.android.exoplayer2.drm.FrameworkMediaCrypto;
+import com.google.android.exoplayer2.drm.FrameworkMediaDrm;
+import com.google.android.exoplayer2.drm.HttpMediaDrmCallback;
+import com.google.android.exoplayer2.drm.LocalMediaDrmCallback;
+import com.google.android.exoplayer2.drm.MediaDrmCallback;
+import com.google.android.exoplayer2.drm.OfflineLicenseHelper;
+import com.google.android.exoplayer2.drm.UnsupportedDrmException;
+import com.google.android.exoplayer2.source.dash.DashUtil;
+import com.google.android.exoplayer2.source.dash.manifest.DashManifest;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.HttpDataSource;
+import com.google.android.exoplayer2.util.Util;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The license callbacks and persisted offline keys shared by the players of the plugin, keyed by
+ * scheme, license url and local key material.
+ *
+ * <p>No DRM sessions are shared. A session manager is bound to the playback thread of one player, so
+ * every player gets its own, with its own {@link FrameworkMediaDrm}: a media DRM has a single event
+ * listener, which each manager takes over when it prepares, so managers sharing one would miss the
+ * key requests and expiry events of each other's sessions. Only the license callback of an entry is
+ * shared, and entries are kept for the life of the plugin.
+ *
+ * <p>Offline keys are only fetched for Widevine DASH content: the first time such content is played
+ * an offline license is fetched in the background, and its key set is persisted, so later players
+ * restore the keys instead of requesting a license. Other schemes and formats always request
+ * streaming licenses.
+ *
+ * <p>Must only be used on the {@link PlaybackThread}.
+ */
+final class DrmSessionCache {
+    private static final String PREFERENCES_NAME = "player_plugin_drm";
+
+    static final class Entry {
+        private final String key;
+        private final UUID uuid;
+        private final String licenseUrl;
+        private final MediaDrmCallback callback;
+
+        private Entry(String key, UUID uuid, String licenseUrl, MediaDrmCallback callback) {
+            this.key = key;
+            this.uuid = uuid;
+            this.licenseUrl = licenseUrl;
+            this.callback = callback;
+        }
+    }
+
+    private final SharedPreferences preferences;
+    private final HttpDataSource.Factory httpDataSourceFactory;
+    private final Handler handler = PlaybackThread.getInstance().getHandler();
+    // A daemon thread, so that a pending license fetch does not keep the process alive.
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "DrmOfflineLicense");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Set<String> pendingOfflineLicenses = new HashSet<>();
+
+    DrmSessionCache(Context context) {
+        preferences = context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+        httpDataSourceFactory = HttpStack.getInstance(context);
+    }
+
+    /**
+     * Returns the entry for {@code scheme} and either {@code licenseUrl} or the ClearKey response
+     * {@code keyMaterial}, creating it the first time.
+     */
+    Entry getEntry(String scheme, String licenseUrl, String keyMaterial) throws UnsupportedDrmException {
+        if (Util.SDK_INT < 18) {
+            throw new UnsupportedDrmException(UnsupportedDrmException.REASON_UNSUPPORTED_SCHEME);
+        }
+        boolean local = keyMaterial != null && !keyMaterial.isEmpty();
+        String key = scheme + '|' + (local ? "" : licenseUrl) + '|' + (local ? keyMaterial : "");
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            UUID uuid = Util.getDrmUuid(scheme);
+            if (uuid == null) {
+                throw new UnsupportedDrmException(UnsupportedDrmException.REASON_UNSUPPORTED_SCHEME);
+            }
+            // Fails early if the device does not support the scheme.
+            FrameworkMediaDrm.newInstance(uuid).release();
+            MediaDrmCallback callback = local ? new LocalMediaDrmCallback(Util.getUtf8Bytes(keyMaterial))
+                    : new HttpMediaDrmCallback(licenseUrl, httpDataSourceFactory);
+            entry = new Entry(key, uuid, local ? null : licenseUrl, callback);
+            entries.put(key, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Builds a session manager for one player of {@code entry}, restoring the persisted offline keys
+     * of {@code contentUri} if there are any. The manager opens its own media DRM when prepared, and
+     * releases it with its last session.
+     */
+    DefaultDrmSessionManager<ExoMediaCrypto> buildSessionManager(Entry entry, String contentUri, String extension) {
+        DefaultDrmSessionManager<ExoMediaCrypto> drmSessionManager = new DefaultDrmSessionManager.Builder()
+                .setUuidAndExoMediaDrmProvider(entry.uuid, FrameworkMediaDrm.DEFAULT_PROVIDER)
+                .setMultiSession(true)
+                .build(entry.callback);
+        byte[] keySetId = getOfflineKeySetId(entry, contentUri);
+        if (keySetId != null) {
+            drmSessionManager.setMode(DefaultDrmSessionManager.MODE_PLAYBACK, keySetId);
+        } else {
+            maybeFetchOfflineLicense(entry, Uri.parse(contentUri), extension);
+        }
+        return drmSessionManager;
+    }
+
+    private byte[] getOfflineKeySetId(Entry entry, String contentUri) {
+        String preferenceKey = offlineKey(entry, contentUri);
+        String keySetId = preferences.getString("keySetId_" + preferenceKey, null);
+        if (keySetId == null || preferences.getLong("expiresAtMs_" + preferenceKey, 0) <= System.currentTimeMillis()) {
+            return null;
+        }
+        return Base64.decode(keySetId, Base64.NO_WRAP);
+    }
+
+    private void maybeFetchOfflineLicense(Entry entry, final Uri uri, String extension) {
+        if (!C.WIDEVINE_UUID.equals(entry.uuid) || entry.licenseUrl == null
+                || Util.inferContentType(uri, extension) != C.TYPE_DASH) {
+            return;
+        }
+        final String preferenceKey = offlineKey(entry, uri.toString());
+        if (!pendingOfflineLicenses.add(preferenceKey)) {
+            return;
+        }
+        final String licenseUrl = entry.licenseUrl;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    fetchOfflineLicense(licenseUrl, uri, preferenceKey);
+                } finally {
+                    handler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            pendingOfflineLicenses.remove(preferenceKey);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    private void fetchOfflineLicense(String licenseUrl, Uri uri, String preferenceKey) {
+        OfflineLicenseHelper<FrameworkMediaCrypto> helper = null;
+        try {
+            helper = OfflineLicenseHelper.newWidevineInstance(licenseUrl, httpDataSourceFactory);
+            DataSource dataSource = httpDataSourceFactory.createDataSource();
+            DashManifest manifest = DashUtil.loadManifest(dataSource, uri);
+            DrmInitData drmInitData = DashUtil.loadDrmInitData(dataSource, manifest.getPeriod(0));
+            if (drmInitData == null) {
+                return;
+            }
+            byte[] keySetId = helper.downloadLicense(drmInitData);
+            Pair<Long, Long> remainingSec = helper.getLicenseDurationRemainingSec(keySetId);
+            long remainingMs = Math.min(remainingSec.first, remainingSec.second) * 1000;
+            if (remainingMs <= 0) {
+                return;
+            }
+            preferences.edit()
+                    .putString("keySetId_" + preferenceKey, Base64.encodeToString(keySetId, Base64.NO_WRAP))
+                    .putLong("expiresAtMs_" + preferenceKey, System.currentTimeMillis() + remainingMs)
+                    .apply();
+        } catch (IOException | InterruptedException | UnsupportedDrmException | DrmSession.DrmSessionException e) {
+            // The license server may not grant offline licenses. Players keep requesting streaming ones.
+        } finally {
+            if (helper != null) {
+                helper.release();
+            }
+        }
+    }
+
+    private static String offlineKey(Entry entry, String contentUri) {
+        return entry.key + '|' + contentUri;
+    }
+}
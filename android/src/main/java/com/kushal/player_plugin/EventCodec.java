@@ -0,0 +1,94 @@
+package com.kushal.player_plugin;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Packs the frequent player events into a compact binary layout, for players created with
+ * {@code binaryEvents}.
+ *
+ * <p>Each event is a one byte tag followed by little-endian fields:
+ *
+ * <ul>
+ *   <li>{@link #TAG_TICK}: int64 position, int64 buffered position, int32 bitrate, int8 playing,
+ *       int64 buffered duration, int32 buffered bytes, int64 live latency or -1 if not live.
+ *   <li>{@link #TAG_BUFFERING_UPDATE}: int64 buffered start, int64 buffered end, int64 buffered
+ *       duration, int32 buffered bytes.
+ *   <li>{@link #TAG_AUTO_FORMAT}: int32 video height.
+ *   <li>{@link #TAG_COMPLETED}: no fields.
+ *   <li>{@link #TAG_ITEM_TRANSITION}: int32 item index, int64 item duration, int8 reason.
+ * </ul>
+ *
+ * <p>Events are assembled in a reusable buffer and copied out as a single byte array, which the
+ * standard codec sends as a {@code Uint8List}. An instance must only be used from one thread. The
+ * Dart decoder in {@code player_plugin.dart} must be kept in sync with these layouts.
+ */
+final class EventCodec {
+    static final byte TAG_TICK = 1;
+    static final byte TAG_BUFFERING_UPDATE = 2;
+    static final byte TAG_AUTO_FORMAT = 3;
+    static final byte TAG_COMPLETED = 4;
+    static final byte TAG_ITEM_TRANSITION = 5;
+
+    static final byte REASON_AUTO = 0;
+    static final byte REASON_SEEK = 1;
+    static final byte REASON_PLAYLIST_CHANGED = 2;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+
+    byte[] encodeTick(long position, long bufferedPosition, int bitrate, boolean playing,
+                      long bufferedDurationMs, int bufferedBytes, long liveLatencyMs) {
+        buffer.clear();
+        buffer.put(TAG_TICK).putLong(position).putLong(bufferedPosition).putInt(bitrate).put((byte) (playing ? 1 : 0))
+                .putLong(bufferedDurationMs).putInt(bufferedBytes).putLong(liveLatencyMs);
+        return copy();
+    }
+
+    byte[] encodeBufferingUpdate(long start, long end, long bufferedDurationMs, int bufferedBytes) {
+        buffer.clear();
+        buffer.put(TAG_BUFFERING_UPDATE).putLong(start).putLong(end).putLong(bufferedDurationMs).putInt(bufferedBytes);
+        return copy();
+    }
+
+    byte[] encodeAutoFormat(int height) {
+        buffer.clear();
+        buffer.put(TAG_AUTO_FORMAT).putInt(height);
+        return copy();
+    }
+
+    byte[] encodeCompleted() {
+        return new byte[] {TAG_COMPLETED};
+    }
+
+    byte[] encodeItemTransition(int index, long duration, byte reason) {
+        buffer.clear();
+        buffer.put(TAG_ITEM_TRANSITION).putInt(index).putLong(duration).put(reason);
+        return copy();
+    }
+
+    /** Returns the name of the map event equivalent to the binary {@code event}. */
+    static String getEventType(byte[] event) {
+        if (event.length == 0) {
+            return null;
+        }
+        switch (event[0]) {
+            case TAG_TICK:
+                return "tick";
+            case TAG_BUFFERING_UPDATE:
+                return "bufferingUpdate";
+            case TAG_AUTO_FORMAT:
+                return "autoFormat";
+            case TAG_COMPLETED:
+                return "completed";
+            case TAG_ITEM_TRANSITION:
+                return "itemTransition";
+            default:
+                return null;
+        }
+    }
+
+    private byte[] copy() {
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+}
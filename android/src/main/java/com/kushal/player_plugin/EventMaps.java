@@ -0,0 +1,71 @@
+package com.kushal.player_plugin;
+
+import com.google.android.exoplayer2.Format;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the map events of the {@code videoEvents} channel. {@link EventCodec} builds the binary
+ * equivalents of the frequent ones.
+ */
+final class EventMaps {
+    private EventMaps() {}
+
+    /** @param liveLatencyMs the live latency, or -1 if not playing a live stream. */
+    static Map<String, Object> tick(long position, long bufferedPosition, int bitrate, boolean playing,
+                                    long bufferedDurationMs, int bufferedBytes, long liveLatencyMs) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("event", "tick");
+        event.put("values", new long[] {
+                position, bufferedPosition, bitrate, playing ? 1 : 0, bufferedDurationMs, bufferedBytes,
+                liveLatencyMs});
+        return event;
+    }
+
+    static Map<String, Object> bufferingUpdate(long bufferedPosition, long bufferedDurationMs, int bufferedBytes) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("event", "bufferingUpdate");
+        List<? extends Number> range = Arrays.asList(0, bufferedPosition);
+        // iOS supports a list of buffered ranges, so here is a list with a single
+        // range.
+        event.put("values", Collections.singletonList(range));
+        event.put("bufferedDurationMs", bufferedDurationMs);
+        event.put("bufferedBytes", bufferedBytes);
+        return event;
+    }
+
+    static Map<String, Object> autoFormat(int height) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("event", "autoFormat");
+        event.put("autoFormat", height + "p");
+        return event;
+    }
+
+    /** @param videoFormat the format of the playing video, or null for audio only media. */
+    @SuppressWarnings("SuspiciousNameCombination")
+    static Map<String, Object> initialized(long duration, Format videoFormat, TrackDescriptors tracks) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("event", "initialized");
+        event.put("duration", duration);
+        if (videoFormat != null) {
+            int width = videoFormat.width;
+            int height = videoFormat.height;
+            int rotationDegrees = videoFormat.rotationDegrees;
+            // Switch the width/height if video was taken in portrait mode
+            if (rotationDegrees == 90 || rotationDegrees == 270) {
+                width = videoFormat.height;
+                height = videoFormat.width;
+            }
+            event.put("width", width);
+            event.put("height", height);
+        }
+        event.put("audios", tracks.audios);
+        event.put("resolutions", tracks.videos);
+        event.put("subtitles", tracks.texts);
+        return event;
+    }
+}
@@ -0,0 +1,15 @@
+package com.kushal.player_plugin;
+
+import java.util.Map;
+
+/**
+ * Supplies headers, such as short lived auth tokens, for the HTTP requests of the plugin.
+ *
+ * <p>Set with {@link PlayerPlugin#setHttpHeaderProvider(HttpHeaderProvider)}. It is called on the
+ * loading threads of the players and downloads, right before every request, so it must be thread
+ * safe and must not block on the main thread.
+ */
+public interface HttpHeaderProvider {
+    /** Returns the headers to add to the request for {@code url}, or null to add none. */
+    Map<String, String> getHeaders(String url);
+}
@@ -0,0 +1,142 @@
+package com.kushal.player_plugin;
+
+import android.content.Context;
+
+import com.google.android.exoplayer2.ext.okhttp.OkHttpDataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.DefaultHttpDataSource;
+import com.google.android.exoplayer2.upstream.HttpDataSource;
+import com.google.android.exoplayer2.util.Util;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * The HTTP data source factory shared by every player, download and license request of the plugin.
+ *
+ * <p>By default requests go through {@link DefaultHttpDataSource}, whose connections the platform
+ * keeps alive and reuses process-wide. {@link #configure} can switch to a single OkHttp client
+ * instead, which negotiates HTTP/2 where the server supports it, so that the segment requests of
+ * all players are multiplexed over one connection per host.
+ *
+ * <p>Headers set with {@link #setHeaders} are sent with every request. The {@link HttpHeaderProvider}
+ * is asked for further headers right before each request, so that it can hand out fresh tokens.
+ * Changes to either apply to requests made afterwards, including those of players which already
+ * exist. Timeouts and the client only apply to data sources created afterwards.
+ */
+final class HttpStack extends HttpDataSource.BaseFactory {
+    private static HttpStack instance;
+    private static volatile HttpHeaderProvider headerProvider;
+
+    private final String userAgent;
+    private volatile int connectTimeoutMs = DefaultHttpDataSource.DEFAULT_CONNECT_TIMEOUT_MILLIS;
+    private volatile int readTimeoutMs = DefaultHttpDataSource.DEFAULT_READ_TIMEOUT_MILLIS;
+    private volatile OkHttpClient okHttpClient;
+    private ConnectionPool connectionPool;
+
+    HttpStack(String userAgent) {
+        this.userAgent = userAgent;
+    }
+
+    static synchronized HttpStack getInstance(Context context) {
+        if (instance == null) {
+            instance = new HttpStack(Util.getUserAgent(context, "ExoPlayer"));
+        }
+        return instance;
+    }
+
+    static void setHeaderProvider(HttpHeaderProvider provider) {
+        headerProvider = provider;
+    }
+
+    /**
+     * Sets the timeouts of new data sources and whether they use the shared OkHttp client. The client
+     * keeps its connection pool across calls.
+     */
+    synchronized void configure(int connectTimeoutMs, int readTimeoutMs, boolean useOkHttp) {
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+        if (!useOkHttp) {
+            okHttpClient = null;
+            return;
+        }
+        if (connectionPool == null) {
+            connectionPool = new ConnectionPool();
+        }
+        okHttpClient = new OkHttpClient.Builder()
+                .connectionPool(connectionPool)
+                .connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
+                .readTimeout(readTimeoutMs, TimeUnit.MILLISECONDS)
+                .followSslRedirects(true)
+                .addInterceptor(new Interceptor() {
+                    @Override
+                    public Response intercept(Chain chain) throws IOException {
+                        Request request = chain.request();
+                        Map<String, String> headers = getProvidedHeaders(request.url().toString());
+                        if (headers == null) {
+                            return chain.proceed(request);
+                        }
+                        Request.Builder builder = request.newBuilder();
+                        for (Map.Entry<String, String> header : headers.entrySet()) {
+                            builder.header(header.getKey(), header.getValue());
+                        }
+                        return chain.proceed(builder.build());
+                    }
+                })
+                .build();
+    }
+
+    /** Replaces the headers sent with every request. */
+    void setHeaders(Map<String, String> headers) {
+        getDefaultRequestProperties().clearAndSet(headers);
+    }
+
+    @Override
+    protected HttpDataSource createDataSourceInternal(HttpDataSource.RequestProperties defaultRequestProperties) {
+        OkHttpClient client = okHttpClient;
+        if (client != null) {
+            return new OkHttpDataSource(client, userAgent, /* cacheControl= */ null, defaultRequestProperties);
+        }
+        return new ProvidedHeadersDataSource(defaultRequestProperties);
+    }
+
+    private static Map<String, String> getProvidedHeaders(String url) {
+        HttpHeaderProvider provider = headerProvider;
+        return provider != null ? provider.getHeaders(url) : null;
+    }
+
+    private final class ProvidedHeadersDataSource extends DefaultHttpDataSource {
+        // The names of the headers the provider gave for the last request, which must not outlive it.
+        private final Set<String> providedHeaderNames = new HashSet<>();
+
+        ProvidedHeadersDataSource(HttpDataSource.RequestProperties defaultRequestProperties) {
+            super(userAgent, connectTimeoutMs, readTimeoutMs, /* allowCrossProtocolRedirects= */ true,
+                    defaultRequestProperties);
+        }
+
+        @Override
+        public long open(DataSpec dataSpec) throws HttpDataSourceException {
+            for (String name : providedHeaderNames) {
+                clearRequestProperty(name);
+            }
+            providedHeaderNames.clear();
+            Map<String, String> headers = getProvidedHeaders(dataSpec.uri.toString());
+            if (headers != null) {
+                for (Map.Entry<String, String> header : headers.entrySet()) {
+                    setRequestProperty(header.getKey(), header.getValue());
+                    providedHeaderNames.add(header.getKey());
+                }
+            }
+            return super.open(dataSpec);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.kushal.player_plugin;
+
+/**
+ * An {@link AbrStrategy} which switches between throughput and buffer based selection with the
+ * buffer level, like the dynamic rule of dash.js.
+ *
+ * <p>With a short buffer, at startup and after rebuffering, throughput is the only signal worth
+ * anything and the highest sustainable track is chosen. Once {@link #BOLA_BUFFER_S} are buffered,
+ * and BOLA would not choose a lower track than throughput does, selection hands over to
+ * {@link BolaAbrStrategy}, which rides out throughput dips on the buffer. It hands back when the
+ * buffer falls under {@link #THROUGHPUT_BUFFER_S}.
+ */
+final class HybridAbrStrategy implements AbrStrategy {
+    static final double BOLA_BUFFER_S = BolaAbrStrategy.MINIMUM_BUFFER_S;
+    static final double THROUGHPUT_BUFFER_S = 6;
+
+    private boolean useBola;
+
+    @Override
+    public int selectIndex(int[] bitrates, int selectedIndex, long bufferedDurationUs, long bitrateEstimate) {
+        int sustainableIndex = BolaAbrStrategy.getSustainableIndex(bitrates, bitrateEstimate);
+        double bufferS = bufferedDurationUs / 1_000_000.0;
+        if (useBola) {
+            useBola = bufferS >= THROUGHPUT_BUFFER_S;
+        } else {
+            useBola = bufferS >= BOLA_BUFFER_S && BolaAbrStrategy.getBufferIndex(bitrates, bufferS) <= sustainableIndex;
+        }
+        return useBola ? BolaAbrStrategy.selectSteadyIndex(bitrates, selectedIndex, bufferS, sustainableIndex)
+                : sustainableIndex;
+    }
+}
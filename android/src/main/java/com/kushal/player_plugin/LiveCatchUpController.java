@@ -0,0 +1,100 @@
+package com.kushal.player_plugin;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Timeline;
+
+import java.util.Map;
+
+/**
+ * Keeps a live stream at a target offset behind the live edge.
+ *
+ * <p>Small drifts are corrected by playing slightly faster or slower, proportionally to the drift and
+ * bounded by the minimum and maximum speed, so that the change is not audible. A player which fell
+ * further behind than the maximum drift, typically after rebuffering, seeks back to the target
+ * instead, since catching up tens of seconds at a few percent faster would take minutes.
+ *
+ * <p>The live latency is the wall clock time minus the wall clock time of the playback position,
+ * where the stream provides it (DASH, and HLS with {@code EXT-X-PROGRAM-DATE-TIME}). Otherwise it is
+ * the distance from the position to the end of the live window.
+ */
+final class LiveCatchUpController {
+    static final long EVALUATION_INTERVAL_MS = 1000;
+
+    private static final float DEFAULT_MIN_SPEED = 0.97f;
+    private static final float DEFAULT_MAX_SPEED = 1.03f;
+    private static final long DEFAULT_MAX_DRIFT_MS = 10_000;
+    /** Drifts below this are left alone, so that the speed does not hunt around the target. */
+    private static final long TOLERANCE_MS = 500;
+    /** The speed change per second of drift. */
+    private static final float PROPORTIONAL_GAIN = 0.1f;
+
+    final long targetOffsetMs;
+    private final float minSpeed;
+    private final float maxSpeed;
+    private final long maxDriftMs;
+
+    LiveCatchUpController(long targetOffsetMs, float minSpeed, float maxSpeed, long maxDriftMs) {
+        this.targetOffsetMs = targetOffsetMs;
+        this.minSpeed = minSpeed;
+        this.maxSpeed = maxSpeed;
+        this.maxDriftMs = maxDriftMs;
+    }
+
+    /**
+     * Parses the {@code live} argument of {@code create}: null to play live streams like any other, or
+     * a map with {@code targetOffsetMs} and optionally {@code minSpeed}, {@code maxSpeed} and
+     * {@code maxDriftMs}.
+     *
+     * @throws IllegalArgumentException if the values are out of range.
+     */
+    static LiveCatchUpController fromArgument(Object argument) {
+        if (argument == null) {
+            return null;
+        }
+        Map<?, ?> map = (Map<?, ?>) argument;
+        Number targetOffsetMs = (Number) map.get("targetOffsetMs");
+        if (targetOffsetMs == null || targetOffsetMs.longValue() <= 0) {
+            throw new IllegalArgumentException("The target live offset must be positive");
+        }
+        float minSpeed = map.get("minSpeed") != null ? ((Number) map.get("minSpeed")).floatValue() : DEFAULT_MIN_SPEED;
+        float maxSpeed = map.get("maxSpeed") != null ? ((Number) map.get("maxSpeed")).floatValue() : DEFAULT_MAX_SPEED;
+        long maxDriftMs = map.get("maxDriftMs") != null
+                ? ((Number) map.get("maxDriftMs")).longValue() : DEFAULT_MAX_DRIFT_MS;
+        if (minSpeed <= 0 || minSpeed > 1 || maxSpeed < 1 || maxDriftMs <= TOLERANCE_MS) {
+            throw new IllegalArgumentException("Inconsistent live catch-up bounds");
+        }
+        return new LiveCatchUpController(targetOffsetMs.longValue(), minSpeed, maxSpeed, maxDriftMs);
+    }
+
+    /** Returns whether {@code latencyMs} is too far from the target to catch up by playing faster. */
+    boolean shouldSeek(long latencyMs) {
+        return latencyMs - targetOffsetMs > maxDriftMs;
+    }
+
+    /** Returns the factor by which to scale the playback speed at {@code latencyMs}. */
+    float getSpeedAdjustment(long latencyMs) {
+        long driftMs = latencyMs - targetOffsetMs;
+        if (Math.abs(driftMs) < TOLERANCE_MS) {
+            return 1f;
+        }
+        float adjustment = 1f + PROPORTIONAL_GAIN * driftMs / 1000f;
+        return Math.max(minSpeed, Math.min(maxSpeed, adjustment));
+    }
+
+    /**
+     * Returns the live latency at {@code positionMs} in {@code window}, or {@link C#TIME_UNSET} if the
+     * window is not live or its extent is not known yet.
+     */
+    static long getLiveLatencyMs(Timeline.Window window, long positionMs, long nowUnixTimeMs) {
+        if (!window.isLive) {
+            return C.TIME_UNSET;
+        }
+        if (window.windowStartTimeMs != C.TIME_UNSET) {
+            return nowUnixTimeMs - (window.windowStartTimeMs + positionMs);
+        }
+        if (window.durationUs == C.TIME_UNSET) {
+            return C.TIME_UNSET;
+        }
+        return window.getDurationMs() - positionMs;
+    }
+}
@@ -0,0 +1,152 @@
+package com.kushal.player_plugin;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.DefaultLoadControl;
+import com.google.android.exoplayer2.LoadControl;
+import com.google.android.exoplayer2.upstream.DefaultAllocator;
+
+import java.util.Map;
+
+/**
+ * The buffering parameters of a player's {@link DefaultLoadControl}.
+ *
+ * <p>A profile is given at {@code create} either as the name of a preset, or as a map of the
+ * parameters to override on top of the preset named by its {@code preset} key.
+ */
+final class LoadControlProfile {
+    static final LoadControlProfile DEFAULT = new LoadControlProfile(
+            DefaultLoadControl.DEFAULT_MIN_BUFFER_MS, DefaultLoadControl.DEFAULT_MAX_BUFFER_MS,
+            DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_MS,
+            DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_AFTER_REBUFFER_MS,
+            DefaultLoadControl.DEFAULT_TARGET_BUFFER_BYTES, DefaultLoadControl.DEFAULT_PRIORITIZE_TIME_OVER_SIZE_THRESHOLDS);
+
+    /** Starts and resumes playback as soon as possible, for live content. */
+    static final LoadControlProfile LOW_LATENCY = new LoadControlProfile(
+            2_000, 8_000, 500, 1_000, C.LENGTH_UNSET, true);
+
+    /** Buffers less ahead, so that less data is wasted when playback is abandoned. */
+    static final LoadControlProfile DATA_SAVER = new LoadControlProfile(
+            10_000, 20_000, 2_500, 5_000, C.LENGTH_UNSET, true);
+
+    /** Caps the buffer size, so that several players can be alive on low-end devices. */
+    static final LoadControlProfile MEMORY_CONSTRAINED = new LoadControlProfile(
+            5_000, 15_000, 1_500, 3_000, 8 * 1024 * 1024, false);
+
+    final int minBufferMs;
+    final int maxBufferMs;
+    final int bufferForPlaybackMs;
+    final int bufferForPlaybackAfterRebufferMs;
+    final int targetBufferBytes;
+    final boolean prioritizeTimeOverSizeThresholds;
+
+    private LoadControlProfile(int minBufferMs, int maxBufferMs, int bufferForPlaybackMs,
+                               int bufferForPlaybackAfterRebufferMs, int targetBufferBytes,
+                               boolean prioritizeTimeOverSizeThresholds) {
+        this.minBufferMs = minBufferMs;
+        this.maxBufferMs = maxBufferMs;
+        this.bufferForPlaybackMs = bufferForPlaybackMs;
+        this.bufferForPlaybackAfterRebufferMs = bufferForPlaybackAfterRebufferMs;
+        this.targetBufferBytes = targetBufferBytes;
+        this.prioritizeTimeOverSizeThresholds = prioritizeTimeOverSizeThresholds;
+    }
+
+    /**
+     * Returns the profile described by a {@code create} argument, which may be null, a preset name
+     * or a map of overrides.
+     *
+     * @throws IllegalArgumentException if a preset name is unknown, a value is negative or not a
+     *     number, or the buffer durations are inconsistent.
+     */
+    static LoadControlProfile fromArgument(Object argument) {
+        if (argument == null) {
+            return DEFAULT;
+        }
+        if (argument instanceof String) {
+            return getPreset((String) argument);
+        }
+        Map<?, ?> map = (Map<?, ?>) argument;
+        LoadControlProfile preset = getPreset((String) map.get("preset"));
+        LoadControlProfile profile = new LoadControlProfile(
+                getInt(map, "minBufferMs", preset.minBufferMs),
+                getInt(map, "maxBufferMs", preset.maxBufferMs),
+                getInt(map, "bufferForPlaybackMs", preset.bufferForPlaybackMs),
+                getInt(map, "bufferForPlaybackAfterRebufferMs", preset.bufferForPlaybackAfterRebufferMs),
+                getInt(map, "targetBufferBytes", preset.targetBufferBytes),
+                map.get("prioritizeTimeOverSizeThresholds") != null
+                        ? (Boolean) map.get("prioritizeTimeOverSizeThresholds")
+                        : preset.prioritizeTimeOverSizeThresholds);
+        // The load control asserts these when built on the playback thread, where they must not fail.
+        if (profile.bufferForPlaybackMs < 0 || profile.bufferForPlaybackAfterRebufferMs < 0
+                || profile.targetBufferBytes < C.LENGTH_UNSET) {
+            throw new IllegalArgumentException("Negative buffer durations or sizes");
+        }
+        if (profile.minBufferMs > profile.maxBufferMs || profile.bufferForPlaybackMs > profile.minBufferMs
+                || profile.bufferForPlaybackAfterRebufferMs > profile.minBufferMs) {
+            throw new IllegalArgumentException("Inconsistent buffer durations");
+        }
+        return profile;
+    }
+
+    private static LoadControlProfile getPreset(String name) {
+        if (name == null || name.equals("default")) {
+            return DEFAULT;
+        }
+        switch (name) {
+            case "lowLatency":
+                return LOW_LATENCY;
+            case "dataSaver":
+                return DATA_SAVER;
+            case "memoryConstrained":
+                return MEMORY_CONSTRAINED;
+            default:
+                throw new IllegalArgumentException("Unknown load control preset: " + name);
+        }
+    }
+
+    private static int getInt(Map<?, ?> map, String key, int defaultValue) {
+        Object value = map.get(key);
+        if (value != null && !(value instanceof Number)) {
+            throw new IllegalArgumentException(key + " must be a number");
+        }
+        return value != null ? ((Number) value).intValue() : defaultValue;
+    }
+
+    /** Builds a load control which takes its buffer from {@code allocator}, within the budget of {@code pool}. */
+    LoadControl build(DefaultAllocator allocator, SegmentPool pool) {
+        DefaultLoadControl loadControl = new DefaultLoadControl.Builder()
+                .setAllocator(allocator)
+                .setBufferDurationsMs(minBufferMs, maxBufferMs, bufferForPlaybackMs, bufferForPlaybackAfterRebufferMs)
+                .setTargetBufferBytes(targetBufferBytes)
+                .setPrioritizeTimeOverSizeThresholds(prioritizeTimeOverSizeThresholds)
+                .createDefaultLoadControl();
+        return new PooledLoadControl(loadControl, pool, C.msToUs(minBufferMs));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LoadControlProfile)) {
+            return false;
+        }
+        LoadControlProfile other = (LoadControlProfile) o;
+        return minBufferMs == other.minBufferMs
+                && maxBufferMs == other.maxBufferMs
+                && bufferForPlaybackMs == other.bufferForPlaybackMs
+                && bufferForPlaybackAfterRebufferMs == other.bufferForPlaybackAfterRebufferMs
+                && targetBufferBytes == other.targetBufferBytes
+                && prioritizeTimeOverSizeThresholds == other.prioritizeTimeOverSizeThresholds;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = minBufferMs;
+        result = 31 * result + maxBufferMs;
+        result = 31 * result + bufferForPlaybackMs;
+        result = 31 * result + bufferForPlaybackAfterRebufferMs;
+        result = 31 * result + targetBufferBytes;
+        result = 31 * result + (prioritizeTimeOverSizeThresholds ? 1 : 0);
+        return result;
+    }
+}
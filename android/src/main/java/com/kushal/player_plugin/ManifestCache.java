@@ -0,0 +1,456 @@
+package com.kushal.player_plugin;
+
+import android.content.Context;
+import android.net.Uri;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.TransferListener;
+import com.google.android.exoplayer2.util.Util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The HLS playlists, DASH manifests and SmoothStreaming manifests loaded by the players of the
+ * plugin, kept in memory, and optionally on disk, so that re-opening a title does not wait for them.
+ *
+ * <p>Entries are keyed by the URI without its signed-URL query tokens, and hold the bytes together
+ * with the URI they were finally loaded from, against which relative segment URIs resolve. How long
+ * an entry stays fresh depends on the manifest: VOD manifests and HLS master playlists for the VOD
+ * TTL, live HLS media playlists for half their target duration, which is when the player would
+ * reload them, and live DASH manifests for their minimum update period. Live SmoothStreaming
+ * manifests are not cached. The least recently used entries are evicted beyond the maximum count,
+ * which also caps the files on disk. Expired and evicted entries are deleted from disk too.
+ *
+ * <p>A hit serves the URI and bytes of the earlier load, so the query tokens of a signed manifest
+ * URI, and of any absolute segment URIs in the manifest, are as old as the entry. Manifests loaded
+ * from a signed URI, as told by {@link SignedUrlCacheKeyFactory}, therefore stay fresh for at most
+ * {@link #SIGNED_MAX_AGE_MS}. Tokens only found in the segment URIs of a manifest are not detected,
+ * so their lifetime must exceed the VOD TTL.
+ *
+ * <p>Each entry may also hold the {@code initialized} event last sent for its media, so that a
+ * player re-opening it can send the event before its first segment is loaded.
+ *
+ * <p>Thread safe, as manifests are loaded on the loader threads of the players.
+ */
+final class ManifestCache {
+    static final int DEFAULT_MAX_ENTRIES = 32;
+    static final long DEFAULT_VOD_TTL_MS = 10 * 60_000;
+    private static final String DISK_DIRECTORY = "player_plugin_manifests";
+    /** How long a manifest loaded from a signed URI stays fresh at most. */
+    static final long SIGNED_MAX_AGE_MS = 60_000;
+    /**
+     * Only the start of a manifest is searched for the properties deciding its freshness, and its end
+     * for the end tag of an HLS playlist.
+     */
+    private static final int SNIFF_LENGTH = 16 * 1024;
+    private static final int TAIL_SNIFF_LENGTH = 1024;
+
+    private static final Pattern HLS_TARGET_DURATION = Pattern.compile("#EXT-X-TARGETDURATION:(\\d+)");
+    private static final Pattern DASH_MINIMUM_UPDATE_PERIOD = Pattern.compile("minimumUpdatePeriod=\"([^\"]+)\"");
+
+    private static ManifestCache instance;
+
+    private static final class Entry {
+        final Uri uri;
+        final byte[] data;
+        final long expiresAtMs;
+        Map<String, Object> initializedEvent;
+
+        Entry(Uri uri, byte[] data, long expiresAtMs) {
+            this.uri = uri;
+            this.data = data;
+            this.expiresAtMs = expiresAtMs;
+        }
+    }
+
+    private final File cacheDirectory;
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, /* accessOrder= */ true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() <= maxEntries) {
+                return false;
+            }
+            deleteFromDisk(eldest.getKey());
+            return true;
+        }
+    };
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+    private long vodTtlMs = DEFAULT_VOD_TTL_MS;
+    private File diskDirectory;
+    // The names of the files on disk, from the least to the most recently used. Files written by earlier
+    // processes are only in memory once read.
+    private final LinkedHashSet<String> diskFiles = new LinkedHashSet<>();
+    private long hits;
+    private long misses;
+
+    private ManifestCache(Context context) {
+        cacheDirectory = context.getCacheDir();
+    }
+
+    static synchronized ManifestCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new ManifestCache(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /** Returns the key of the manifest at {@code uri}. */
+    static String getKey(String uri) {
+        return SignedUrlCacheKeyFactory.stripSignedQueryParameters(uri);
+    }
+
+    /**
+     * Sets the number of manifests kept in memory, how long VOD manifests stay fresh, and whether
+     * manifests are also kept on disk, where they survive the process.
+     */
+    synchronized void configure(int maxEntries, long vodTtlMs, boolean persistToDisk) {
+        this.maxEntries = maxEntries;
+        this.vodTtlMs = vodTtlMs;
+        File directory = new File(cacheDirectory, DISK_DIRECTORY);
+        diskDirectory = persistToDisk ? directory : null;
+        diskFiles.clear();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            if (persistToDisk) {
+                Arrays.sort(files, new Comparator<File>() {
+                    @Override
+                    public int compare(File a, File b) {
+                        long difference = a.lastModified() - b.lastModified();
+                        return difference < 0 ? -1 : difference > 0 ? 1 : 0;
+                    }
+                });
+                for (File file : files) {
+                    diskFiles.add(file.getName());
+                }
+            } else {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+        }
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            deleteFromDisk(iterator.next().getKey());
+            iterator.remove();
+        }
+        trimDisk();
+    }
+
+    /** Returns a factory of data sources which serve manifests from the cache, or load them from {@code upstream}. */
+    DataSource.Factory buildDataSourceFactory(final DataSource.Factory upstream) {
+        return new DataSource.Factory() {
+            @Override
+            public DataSource createDataSource() {
+                return new CachingDataSource(upstream.createDataSource());
+            }
+        };
+    }
+
+    /**
+     * Returns the {@code initialized} event last sent for the media at {@code key}, or null. Events
+     * are only kept in memory, so this does not read from disk.
+     */
+    synchronized Map<String, Object> getInitializedEvent(String key) {
+        Entry entry = getFromMemory(key);
+        return entry != null && entry.initializedEvent != null ? new HashMap<>(entry.initializedEvent) : null;
+    }
+
+    /** Keeps {@code event} with the manifest at {@code key}, as long as the manifest is fresh. */
+    synchronized void putInitializedEvent(String key, Map<String, Object> event) {
+        Entry entry = getFromMemory(key);
+        if (entry != null) {
+            entry.initializedEvent = new HashMap<>(event);
+        }
+    }
+
+    /** Drops the manifests kept in memory, under memory pressure. Those on disk are kept. */
+    synchronized void trimMemory() {
+        entries.clear();
+    }
+
+    synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("manifestHits", hits);
+        stats.put("manifestMisses", misses);
+        stats.put("manifestEntries", entries.size());
+        return stats;
+    }
+
+    /** Returns the fresh entry at {@code key} in memory, deleting it if it expired. */
+    private synchronized Entry getFromMemory(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAtMs <= System.currentTimeMillis()) {
+            entries.remove(key);
+            deleteFromDisk(key);
+            return null;
+        }
+        return entry;
+    }
+
+    /** Returns the fresh entry at {@code key}, from memory or else from disk, which is read unlocked. */
+    private Entry lookUp(String key) {
+        Entry entry = getFromMemory(key);
+        File directory;
+        synchronized (this) {
+            directory = diskDirectory;
+        }
+        if (entry == null && directory != null) {
+            entry = addFromDisk(key, readFromDisk(directory, key));
+        }
+        synchronized (this) {
+            if (entry != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+        return entry;
+    }
+
+    private synchronized Entry addFromDisk(String key, Entry entry) {
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMs <= System.currentTimeMillis()) {
+            deleteFromDisk(key);
+            return null;
+        }
+        Entry existing = entries.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        entries.put(key, entry);
+        touchDiskFile(getFileName(key));
+        return entry;
+    }
+
+    private void put(String key, Uri uri, byte[] data, boolean signed) {
+        Entry entry;
+        File directory;
+        synchronized (this) {
+            long maxAgeMs = getMaxAgeMs(data, vodTtlMs);
+            if (maxAgeMs <= 0) {
+                return;
+            }
+            if (signed) {
+                maxAgeMs = Math.min(maxAgeMs, SIGNED_MAX_AGE_MS);
+            }
+            entry = new Entry(uri, data, System.currentTimeMillis() + maxAgeMs);
+            entries.put(key, entry);
+            directory = diskDirectory;
+            if (directory != null) {
+                touchDiskFile(getFileName(key));
+                trimDisk();
+            }
+        }
+        if (directory != null) {
+            writeToDisk(directory, key, entry);
+        }
+    }
+
+    /** Marks the file {@code name} as the most recently used. */
+    private void touchDiskFile(String name) {
+        diskFiles.remove(name);
+        diskFiles.add(name);
+    }
+
+    /** Deletes the least recently used files beyond the maximum count. */
+    private void trimDisk() {
+        Iterator<String> iterator = diskFiles.iterator();
+        while (diskFiles.size() > maxEntries && iterator.hasNext()) {
+            new File(diskDirectory, iterator.next()).delete();
+            iterator.remove();
+        }
+    }
+
+    private void deleteFromDisk(String key) {
+        if (diskDirectory == null) {
+            return;
+        }
+        String name = getFileName(key);
+        diskFiles.remove(name);
+        new File(diskDirectory, name).delete();
+    }
+
+    /** Returns for how long {@code data} stays fresh, or 0 if it is not a manifest worth caching. */
+    static long getMaxAgeMs(byte[] data, long vodTtlMs) {
+        String text = Util.fromUtf8Bytes(data, 0, Math.min(data.length, SNIFF_LENGTH));
+        if (text.startsWith("#EXTM3U")) {
+            // The end tag follows the last segment, past the start of long playlists.
+            String tail = data.length <= SNIFF_LENGTH ? text
+                    : Util.fromUtf8Bytes(data, data.length - TAIL_SNIFF_LENGTH, TAIL_SNIFF_LENGTH);
+            if (text.contains("#EXT-X-STREAM-INF") || tail.contains("#EXT-X-ENDLIST")
+                    || text.contains("#EXT-X-PLAYLIST-TYPE:VOD")) {
+                return vodTtlMs;
+            }
+            Matcher matcher = HLS_TARGET_DURATION.matcher(text);
+            return matcher.find() ? Long.parseLong(matcher.group(1)) * 1000 / 2 : 0;
+        }
+        if (text.contains("<MPD")) {
+            if (!text.contains("type=\"dynamic\"")) {
+                return vodTtlMs;
+            }
+            Matcher matcher = DASH_MINIMUM_UPDATE_PERIOD.matcher(text);
+            return matcher.find() ? Util.parseXsDuration(matcher.group(1)) : 0;
+        }
+        if (text.contains("<SmoothStreamingMedia")) {
+            return text.contains("IsLive=\"TRUE\"") || text.contains("IsLive=\"true\"") ? 0 : vodTtlMs;
+        }
+        return 0;
+    }
+
+    private static String getFileName(String key) {
+        return Integer.toHexString(key.hashCode());
+    }
+
+    private static Entry readFromDisk(File directory, String key) {
+        File file = new File(directory, getFileName(key));
+        if (!file.exists()) {
+            return null;
+        }
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(new FileInputStream(file));
+            // Files are named by hash, so the key tells whether the file belongs to this one.
+            if (!input.readUTF().equals(key)) {
+                return null;
+            }
+            Uri uri = Uri.parse(input.readUTF());
+            long expiresAtMs = input.readLong();
+            byte[] data = new byte[input.readInt()];
+            input.readFully(data);
+            return new Entry(uri, data, expiresAtMs);
+        } catch (IOException e) {
+            return null;
+        } finally {
+            Util.closeQuietly(input);
+        }
+    }
+
+    private static void writeToDisk(File directory, String key, Entry entry) {
+        DataOutputStream output = null;
+        try {
+            if (!directory.exists() && !directory.mkdirs()) {
+                return;
+            }
+            output = new DataOutputStream(new FileOutputStream(new File(directory, getFileName(key))));
+            output.writeUTF(key);
+            output.writeUTF(entry.uri.toString());
+            output.writeLong(entry.expiresAtMs);
+            output.writeInt(entry.data.length);
+            output.write(entry.data);
+        } catch (IOException e) {
+            // The entry stays in memory.
+        } finally {
+            Util.closeQuietly(output);
+        }
+    }
+
+    /**
+     * Serves a whole manifest from the cache, or loads it from upstream into the cache. Requests for
+     * part of a resource, or other than GET, go to upstream as they are.
+     */
+    private final class CachingDataSource implements DataSource {
+        private final DataSource upstream;
+        private boolean passThrough;
+        private Uri uri;
+        private byte[] data;
+        private int readPosition;
+
+        CachingDataSource(DataSource upstream) {
+            this.upstream = upstream;
+        }
+
+        @Override
+        public void addTransferListener(TransferListener transferListener) {
+            upstream.addTransferListener(transferListener);
+        }
+
+        @Override
+        public long open(DataSpec dataSpec) throws IOException {
+            passThrough = dataSpec.position != 0 || dataSpec.length != C.LENGTH_UNSET
+                    || dataSpec.httpMethod != DataSpec.HTTP_METHOD_GET;
+            if (passThrough) {
+                return upstream.open(dataSpec);
+            }
+            String key = getKey(dataSpec.uri.toString());
+            Entry entry = lookUp(key);
+            if (entry != null) {
+                uri = entry.uri;
+                data = entry.data;
+            } else {
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                try {
+                    upstream.open(dataSpec);
+                    byte[] buffer = new byte[4096];
+                    int read;
+                    while ((read = upstream.read(buffer, 0, buffer.length)) != C.RESULT_END_OF_INPUT) {
+                        output.write(buffer, 0, read);
+                    }
+                    uri = upstream.getUri() != null ? upstream.getUri() : dataSpec.uri;
+                } finally {
+                    upstream.close();
+                }
+                data = output.toByteArray();
+                String requestedUri = dataSpec.uri.toString();
+                String loadedUri = uri.toString();
+                boolean signed = !key.equals(requestedUri) || !getKey(loadedUri).equals(loadedUri);
+                put(key, uri, data, signed);
+            }
+            readPosition = 0;
+            return data.length;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int readLength) throws IOException {
+            if (passThrough) {
+                return upstream.read(buffer, offset, readLength);
+            }
+            if (readPosition == data.length) {
+                return C.RESULT_END_OF_INPUT;
+            }
+            int length = Math.min(readLength, data.length - readPosition);
+            System.arraycopy(data, readPosition, buffer, offset, length);
+            readPosition += length;
+            return length;
+        }
+
+        @Override
+        public Uri getUri() {
+            return passThrough ? upstream.getUri() : uri;
+        }
+
+        @Override
+        public Map<String, List<String>> getResponseHeaders() {
+            return passThrough ? upstream.getResponseHeaders() : Collections.<String, List<String>>emptyMap();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (passThrough) {
+                upstream.close();
+            }
+            data = null;
+            uri = null;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.kushal.player_plugin;
+
+import android.content.Context;
+
+import com.google.android.exoplayer2.database.DatabaseProvider;
+import com.google.android.exoplayer2.database.ExoDatabaseProvider;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.FileDataSourceFactory;
+import com.google.android.exoplayer2.upstream.TransferListener;
+import com.google.android.exoplayer2.upstream.cache.Cache;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSink;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSinkFactory;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSource;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSourceFactory;
+import com.google.android.exoplayer2.upstream.cache.CacheKeyFactory;
+import com.google.android.exoplayer2.upstream.cache.LeastRecentlyUsedCacheEvictor;
+import com.google.android.exoplayer2.upstream.cache.SimpleCache;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The media cache shared by every player of the plugin.
+ *
+ * <p>A {@link SimpleCache} may only be opened once per directory and process, so there is exactly
+ * one instance, created lazily under the application cache directory. Media is written through to
+ * it as it is played and evicted least-recently-used once the byte budget set with
+ * {@link #setMaxBytes(long)} is exceeded.
+ */
+final class MediaCache {
+    private static final String CACHE_DIRECTORY = "player_plugin_media";
+    private static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+    private static long maxBytes = DEFAULT_MAX_BYTES;
+    private static DatabaseProvider databaseProvider;
+    private static MediaCache instance;
+
+    private final Cache cache;
+    private final CacheKeyFactory cacheKeyFactory = new SignedUrlCacheKeyFactory();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bytesServed = new AtomicLong();
+    private final AtomicLong bytesDownloaded = new AtomicLong();
+
+    private final CacheDataSource.EventListener cacheEventListener = new CacheDataSource.EventListener() {
+        @Override
+        public void onCachedBytesRead(long cacheSizeBytes, long cachedBytesRead) {
+            hits.incrementAndGet();
+            bytesServed.addAndGet(cachedBytesRead);
+        }
+
+        @Override
+        public void onCacheIgnored(int reason) {
+        }
+    };
+
+    private final TransferListener upstreamListener = new TransferListener() {
+        @Override
+        public void onTransferInitializing(DataSource source, DataSpec dataSpec, boolean isNetwork) {
+        }
+
+        @Override
+        public void onTransferStart(DataSource source, DataSpec dataSpec, boolean isNetwork) {
+            misses.incrementAndGet();
+        }
+
+        @Override
+        public void onBytesTransferred(DataSource source, DataSpec dataSpec, boolean isNetwork, int bytesTransferred) {
+            bytesDownloaded.addAndGet(bytesTransferred);
+        }
+
+        @Override
+        public void onTransferEnd(DataSource source, DataSpec dataSpec, boolean isNetwork) {
+        }
+    };
+
+    private MediaCache(Context context) {
+        File cacheDirectory = new File(context.getCacheDir(), CACHE_DIRECTORY);
+        cache = new SimpleCache(cacheDirectory, new LeastRecentlyUsedCacheEvictor(maxBytes),
+                getDatabaseProvider(context));
+    }
+
+    /**
+     * Sets the byte budget of the cache. Only takes effect if the cache has not been opened yet.
+     *
+     * @return whether the budget was applied, or already was the budget of the open cache.
+     */
+    static synchronized boolean setMaxBytes(long bytes) {
+        if (instance != null) {
+            return bytes == maxBytes;
+        }
+        maxBytes = bytes;
+        return true;
+    }
+
+    static synchronized MediaCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new MediaCache(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    static synchronized DatabaseProvider getDatabaseProvider(Context context) {
+        if (databaseProvider == null) {
+            databaseProvider = new ExoDatabaseProvider(context.getApplicationContext());
+        }
+        return databaseProvider;
+    }
+
+    Cache getCache() {
+        return cache;
+    }
+
+    CacheKeyFactory getCacheKeyFactory() {
+        return cacheKeyFactory;
+    }
+
+    /**
+     * Returns a factory whose data sources read from the cache and write everything fetched from
+     * {@code upstreamFactory} through to it.
+     */
+    DataSource.Factory buildCacheDataSourceFactory(final DataSource.Factory upstreamFactory) {
+        DataSource.Factory countingUpstreamFactory = new DataSource.Factory() {
+            @Override
+            public DataSource createDataSource() {
+                DataSource dataSource = upstreamFactory.createDataSource();
+                dataSource.addTransferListener(upstreamListener);
+                return dataSource;
+            }
+        };
+        return new CacheDataSourceFactory(cache, countingUpstreamFactory, new FileDataSourceFactory(),
+                new CacheDataSinkFactory(cache, CacheDataSink.DEFAULT_FRAGMENT_SIZE),
+                CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR, cacheEventListener, cacheKeyFactory);
+    }
+
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("bytesServed", bytesServed.get());
+        stats.put("bytesDownloaded", bytesDownloaded.get());
+        stats.put("cacheSpaceBytes", cache.getCacheSpace());
+        stats.put("maxBytes", maxBytes);
+        return stats;
+    }
+}
@@ -0,0 +1,265 @@
+package com.kushal.player_plugin;
+
+import android.os.Handler;
+import android.util.Pair;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.Timeline;
+import com.google.android.exoplayer2.source.MediaPeriod;
+import com.google.android.exoplayer2.source.MediaSource;
+import com.google.android.exoplayer2.source.SampleStream;
+import com.google.android.exoplayer2.source.TrackGroup;
+import com.google.android.exoplayer2.source.TrackGroupArray;
+import com.google.android.exoplayer2.trackselection.FixedTrackSelection;
+import com.google.android.exoplayer2.trackselection.TrackSelection;
+import com.google.android.exoplayer2.upstream.BandwidthMeter;
+import com.google.android.exoplayer2.util.MimeTypes;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import io.flutter.plugin.common.MethodChannel.Result;
+
+/**
+ * Loads the first seconds of media which is about to be played, without a player, so that the
+ * player later created for it starts from the media cache.
+ *
+ * <p>A preload prepares the media source built for the media as a player would, and loads one
+ * period from its default position through the caching data sources, into a throwaway buffer. The
+ * tracks loaded are those the adaptive selection of a player would start with: the highest video
+ * and audio tracks within the current bandwidth estimate. Once the buffer reaches the requested
+ * duration, or the end of the media, the period is released and the data stays in the cache.
+ *
+ * <p>At most {@link #MAX_PARALLEL_PRELOADS} preloads run at once, the others wait by descending
+ * priority and then in order. Must only be used on the {@link PlaybackThread}.
+ */
+final class MediaPreloader {
+    static final int MAX_PARALLEL_PRELOADS = 2;
+    private static final long POLL_INTERVAL_MS = 200;
+    private static final float BANDWIDTH_FRACTION = 0.7f;
+
+    private final Handler handler = PlaybackThread.getInstance().getHandler();
+    private final BandwidthMeter bandwidthMeter;
+    private final List<Preload> queued = new ArrayList<>();
+    private final List<Preload> running = new ArrayList<>();
+    private long nextSequence;
+
+    private final Runnable pollRunnable = new Runnable() {
+        @Override
+        public void run() {
+            for (Preload preload : new ArrayList<>(running)) {
+                preload.poll();
+            }
+            if (!running.isEmpty()) {
+                handler.postDelayed(this, POLL_INTERVAL_MS);
+            }
+        }
+    };
+
+    MediaPreloader(BandwidthMeter bandwidthMeter) {
+        this.bandwidthMeter = bandwidthMeter;
+    }
+
+    /**
+     * Preloads the first {@code durationMs} of {@code mediaSource}, replacing any preload with the
+     * same {@code id}. {@code result} receives true once done, false if the preload is cancelled, or
+     * an error.
+     */
+    void preload(String id, MediaSource mediaSource, long durationMs, int priority, Result result) {
+        cancel(id);
+        Preload preload = new Preload(id, mediaSource, C.msToUs(durationMs), priority, nextSequence++, result);
+        int index = 0;
+        while (index < queued.size() && queued.get(index).isBefore(preload)) {
+            index++;
+        }
+        queued.add(index, preload);
+        maybeStartPreloads();
+    }
+
+    /** Cancels the preload with {@code id}, if any. */
+    void cancel(String id) {
+        Iterator<Preload> iterator = queued.iterator();
+        while (iterator.hasNext()) {
+            Preload preload = iterator.next();
+            if (preload.id.equals(id)) {
+                iterator.remove();
+                preload.result.success(false);
+            }
+        }
+        for (Preload preload : new ArrayList<>(running)) {
+            if (preload.id.equals(id)) {
+                preload.finish(false);
+            }
+        }
+    }
+
+    /** Cancels every preload. */
+    void cancelAll() {
+        for (Preload preload : queued) {
+            preload.result.success(false);
+        }
+        queued.clear();
+        for (Preload preload : new ArrayList<>(running)) {
+            preload.finish(false);
+        }
+    }
+
+    private void maybeStartPreloads() {
+        while (running.size() < MAX_PARALLEL_PRELOADS && !queued.isEmpty()) {
+            Preload preload = queued.remove(0);
+            running.add(preload);
+            if (running.size() == 1) {
+                handler.postDelayed(pollRunnable, POLL_INTERVAL_MS);
+            }
+            preload.start();
+        }
+    }
+
+    private final class Preload implements MediaSource.MediaSourceCaller, MediaPeriod.Callback {
+        final String id;
+        final int priority;
+        final Result result;
+        private final MediaSource mediaSource;
+        private final long durationUs;
+        private final long sequence;
+        private final PlayerAllocator allocator = new PlayerAllocator(SegmentPool.getInstance());
+        private MediaPeriod period;
+        private boolean prepared;
+        private long startPositionUs;
+        private SampleStream[] streams = new SampleStream[0];
+        private boolean finished;
+
+        Preload(String id, MediaSource mediaSource, long durationUs, int priority, long sequence, Result result) {
+            this.id = id;
+            this.mediaSource = mediaSource;
+            this.durationUs = durationUs;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.result = result;
+        }
+
+        boolean isBefore(Preload other) {
+            return priority > other.priority || (priority == other.priority && sequence < other.sequence);
+        }
+
+        void start() {
+            mediaSource.prepareSource(this, /* mediaTransferListener= */ null);
+        }
+
+        @Override
+        public void onSourceInfoRefreshed(MediaSource source, Timeline timeline) {
+            // Live manifests keep refreshing, but the period is only created once.
+            if (finished || period != null || timeline.isEmpty()) {
+                return;
+            }
+            Pair<Object, Long> position = timeline.getPeriodPosition(new Timeline.Window(), new Timeline.Period(),
+                    /* windowIndex= */ 0, /* windowPositionUs= */ C.TIME_UNSET);
+            startPositionUs = position.second;
+            period = mediaSource.createPeriod(new MediaSource.MediaPeriodId(position.first), allocator, startPositionUs);
+            period.prepare(this, startPositionUs);
+        }
+
+        @Override
+        public void onPrepared(MediaPeriod mediaPeriod) {
+            if (finished) {
+                return;
+            }
+            prepared = true;
+            TrackGroupArray trackGroups = mediaPeriod.getTrackGroups();
+            TrackSelection[] selections = new TrackSelection[trackGroups.length];
+            boolean hasVideo = false;
+            boolean hasAudio = false;
+            for (int i = 0; i < trackGroups.length; i++) {
+                TrackGroup group = trackGroups.get(i);
+                int trackType = MimeTypes.getTrackType(group.getFormat(0).sampleMimeType);
+                if ((trackType == C.TRACK_TYPE_VIDEO && !hasVideo) || (trackType == C.TRACK_TYPE_AUDIO && !hasAudio)) {
+                    hasVideo |= trackType == C.TRACK_TYPE_VIDEO;
+                    hasAudio |= trackType == C.TRACK_TYPE_AUDIO;
+                    selections[i] = new FixedTrackSelection(group, getInitialTrack(group));
+                }
+            }
+            streams = new SampleStream[selections.length];
+            mediaPeriod.selectTracks(selections, new boolean[selections.length], streams,
+                    new boolean[selections.length], startPositionUs);
+            mediaPeriod.continueLoading(startPositionUs);
+        }
+
+        @Override
+        public void onContinueLoadingRequested(MediaPeriod source) {
+            if (!finished && prepared) {
+                period.continueLoading(startPositionUs);
+            }
+        }
+
+        void poll() {
+            try {
+                if (period == null) {
+                    mediaSource.maybeThrowSourceInfoRefreshError();
+                    return;
+                }
+                if (!prepared) {
+                    period.maybeThrowPrepareError();
+                    return;
+                }
+                for (SampleStream stream : streams) {
+                    if (stream != null) {
+                        stream.maybeThrowError();
+                    }
+                }
+            } catch (IOException e) {
+                fail(e);
+                return;
+            }
+            long bufferedPositionUs = period.getBufferedPositionUs();
+            if (bufferedPositionUs == C.TIME_END_OF_SOURCE || bufferedPositionUs - startPositionUs >= durationUs) {
+                finish(true);
+            } else {
+                period.continueLoading(startPositionUs);
+            }
+        }
+
+        void finish(boolean completed) {
+            release();
+            result.success(completed);
+        }
+
+        private void fail(IOException e) {
+            release();
+            result.error("preload_failed", e.getMessage(), null);
+        }
+
+        private void release() {
+            finished = true;
+            if (period != null) {
+                mediaSource.releasePeriod(period);
+            }
+            mediaSource.releaseSource(this);
+            running.remove(this);
+            if (running.isEmpty()) {
+                handler.removeCallbacks(pollRunnable);
+            }
+            maybeStartPreloads();
+        }
+    }
+
+    /** Returns the index of the track of {@code group} which adaptive selection would start with. */
+    private int getInitialTrack(TrackGroup group) {
+        long effectiveBitrate = (long) (bandwidthMeter.getBitrateEstimate() * BANDWIDTH_FRACTION);
+        int bestIndex = -1;
+        int lowestIndex = 0;
+        for (int i = 0; i < group.length; i++) {
+            Format format = group.getFormat(i);
+            if (format.bitrate < group.getFormat(lowestIndex).bitrate) {
+                lowestIndex = i;
+            }
+            if (format.bitrate <= effectiveBitrate
+                    && (bestIndex == -1 || format.bitrate > group.getFormat(bestIndex).bitrate)) {
+                bestIndex = i;
+            }
+        }
+        return bestIndex != -1 ? bestIndex : lowestIndex;
+    }
+}
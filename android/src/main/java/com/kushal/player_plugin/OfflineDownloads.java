@@ -0,0 +1,248 @@
+package com.kushal.player_plugin;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.DefaultRenderersFactory;
+import com.google.android.exoplayer2.offline.Download;
+import com.google.android.exoplayer2.offline.DownloadCursor;
+import com.google.android.exoplayer2.offline.DownloadHelper;
+import com.google.android.exoplayer2.offline.DownloadManager;
+import com.google.android.exoplayer2.offline.DownloadRequest;
+import com.google.android.exoplayer2.source.MediaSource;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DummyDataSource;
+import com.google.android.exoplayer2.upstream.FileDataSourceFactory;
+import com.google.android.exoplayer2.upstream.cache.Cache;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSource;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSourceFactory;
+import com.google.android.exoplayer2.upstream.cache.NoOpCacheEvictor;
+import com.google.android.exoplayer2.upstream.cache.SimpleCache;
+import com.google.android.exoplayer2.util.Util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.flutter.plugin.common.EventChannel;
+import io.flutter.plugin.common.MethodChannel.Result;
+
+/**
+ * Downloads media for offline playback.
+ *
+ * <p>Downloads are identified by the uri of their media. They are written to their own never-evicted
+ * cache under the files directory, and tracked in a persistent index. Progress is reported on the
+ * {@code downloadEvents} channel.
+ *
+ * <p>Downloads run in the app process, without a foreground {@code DownloadService}, so they stop
+ * with the process. Those interrupted by its death only resume once the plugin is next created in a
+ * new process, which creates this instance.
+ *
+ * <p>Must only be used on the main thread, which is also the thread of the download manager, except
+ * for {@link #buildMediaSource(String)}, which only reads the download index.
+ */
+final class OfflineDownloads {
+    private static final String DOWNLOAD_CONTENT_DIRECTORY = "downloads";
+    private static final int STOP_REASON_PAUSED = 1;
+    private static final long PROGRESS_INTERVAL_MS = 1000;
+
+    private static OfflineDownloads instance;
+
+    private final Context context;
+    private final Cache downloadCache;
+    private final DataSource.Factory upstreamFactory;
+    private final DownloadManager downloadManager;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final QueuingEventSink eventSink = new QueuingEventSink();
+
+    private final Runnable progressRunnable = new Runnable() {
+        @Override
+        public void run() {
+            boolean downloading = false;
+            for (Download download : downloadManager.getCurrentDownloads()) {
+                if (download.state == Download.STATE_DOWNLOADING) {
+                    downloading = true;
+                    eventSink.success(describe(download));
+                }
+            }
+            if (downloading) {
+                handler.postDelayed(this, PROGRESS_INTERVAL_MS);
+            }
+        }
+    };
+
+    private OfflineDownloads(Context context) {
+        this.context = context;
+        downloadCache = new SimpleCache(new File(context.getFilesDir(), DOWNLOAD_CONTENT_DIRECTORY),
+                new NoOpCacheEvictor(), MediaCache.getDatabaseProvider(context));
+        upstreamFactory = HttpStack.getInstance(context);
+        downloadManager = new DownloadManager(context, MediaCache.getDatabaseProvider(context), downloadCache,
+                upstreamFactory);
+        downloadManager.addListener(new DownloadManager.Listener() {
+            @Override
+            public void onDownloadChanged(DownloadManager downloadManager, Download download) {
+                eventSink.success(describe(download));
+                scheduleProgress();
+            }
+
+            @Override
+            public void onDownloadRemoved(DownloadManager downloadManager, Download download) {
+                Map<String, Object> event = new HashMap<>();
+                event.put("event", "downloadRemoved");
+                event.put("id", download.request.id);
+                eventSink.success(event);
+            }
+        });
+        downloadManager.resumeDownloads();
+    }
+
+    static synchronized OfflineDownloads getInstance(Context context) {
+        if (instance == null) {
+            instance = new OfflineDownloads(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    EventChannel.StreamHandler getStreamHandler() {
+        return eventSink.getStreamHandler();
+    }
+
+    /**
+     * Sets how many titles download at once. This is not a limit of connections: the segments of a
+     * single DASH, HLS or SmoothStreaming title are fetched one after the other, over one connection.
+     */
+    void setMaxConcurrentTitles(int maxConcurrentTitles) {
+        downloadManager.setMaxParallelDownloads(maxConcurrentTitles);
+    }
+
+    /**
+     * Resolves the tracks of the media at {@code uri} and queues the download of its default
+     * selection under {@code id}. Replies with the id once queued.
+     */
+    void download(final String id, Uri uri, String extension, String title, final Result result) {
+        final DownloadHelper helper;
+        DefaultRenderersFactory renderersFactory = new DefaultRenderersFactory(context);
+        switch (Util.inferContentType(uri, extension)) {
+            case C.TYPE_DASH:
+                helper = DownloadHelper.forDash(context, uri, upstreamFactory, renderersFactory);
+                break;
+            case C.TYPE_HLS:
+                helper = DownloadHelper.forHls(context, uri, upstreamFactory, renderersFactory);
+                break;
+            case C.TYPE_SS:
+                helper = DownloadHelper.forSmoothStreaming(context, uri, upstreamFactory, renderersFactory);
+                break;
+            default:
+                helper = DownloadHelper.forProgressive(context, uri);
+                break;
+        }
+        final byte[] data = title != null ? Util.getUtf8Bytes(title) : null;
+        helper.prepare(new DownloadHelper.Callback() {
+            @Override
+            public void onPrepared(DownloadHelper helper) {
+                downloadManager.addDownload(helper.getDownloadRequest(id, data));
+                helper.release();
+                result.success(id);
+            }
+
+            @Override
+            public void onPrepareError(DownloadHelper helper, IOException e) {
+                helper.release();
+                result.error("download_failed", e.getMessage(), null);
+            }
+        });
+    }
+
+    void pause(String id) {
+        downloadManager.setStopReason(id, STOP_REASON_PAUSED);
+    }
+
+    void resume(String id) {
+        downloadManager.setStopReason(id, Download.STOP_REASON_NONE);
+    }
+
+    void remove(String id) {
+        downloadManager.removeDownload(id);
+    }
+
+    List<Map<String, Object>> list() throws IOException {
+        List<Map<String, Object>> downloads = new ArrayList<>();
+        DownloadCursor cursor = downloadManager.getDownloadIndex().getDownloads();
+        try {
+            while (cursor.moveToNext()) {
+                downloads.add(describe(cursor.getDownload()));
+            }
+        } finally {
+            cursor.close();
+        }
+        return downloads;
+    }
+
+    /**
+     * Returns a media source reading the completed download {@code id} from local storage only, or
+     * null if there is no such download.
+     */
+    MediaSource buildMediaSource(String id) {
+        Download download;
+        try {
+            download = downloadManager.getDownloadIndex().getDownload(id);
+        } catch (IOException e) {
+            return null;
+        }
+        if (download == null || download.state != Download.STATE_COMPLETED) {
+            return null;
+        }
+        DataSource.Factory dataSourceFactory = new CacheDataSourceFactory(downloadCache, DummyDataSource.FACTORY,
+                new FileDataSourceFactory(), /* cacheWriteDataSinkFactory= */ null, CacheDataSource.FLAG_BLOCK_ON_CACHE,
+                /* eventListener= */ null);
+        return DownloadHelper.createMediaSource(download.request, dataSourceFactory);
+    }
+
+    private void scheduleProgress() {
+        handler.removeCallbacks(progressRunnable);
+        handler.postDelayed(progressRunnable, PROGRESS_INTERVAL_MS);
+    }
+
+    private static Map<String, Object> describe(Download download) {
+        DownloadRequest request = download.request;
+        Map<String, Object> event = new HashMap<>();
+        event.put("event", "download");
+        event.put("id", request.id);
+        event.put("uri", request.uri.toString());
+        event.put("title", request.data.length > 0 ? Util.fromUtf8Bytes(request.data) : null);
+        event.put("state", getStateName(download.state));
+        event.put("stopped", download.stopReason != Download.STOP_REASON_NONE);
+        event.put("percentDownloaded", (double) download.getPercentDownloaded());
+        event.put("bytesDownloaded", download.getBytesDownloaded());
+        event.put("contentLength", download.contentLength);
+        event.put("failed", download.failureReason != Download.FAILURE_REASON_NONE);
+        return event;
+    }
+
+    private static String getStateName(int state) {
+        switch (state) {
+            case Download.STATE_QUEUED:
+                return "queued";
+            case Download.STATE_STOPPED:
+                return "stopped";
+            case Download.STATE_DOWNLOADING:
+                return "downloading";
+            case Download.STATE_COMPLETED:
+                return "completed";
+            case Download.STATE_FAILED:
+                return "failed";
+            case Download.STATE_REMOVING:
+                return "removing";
+            case Download.STATE_RESTARTING:
+                return "restarting";
+            default:
+                return "unknown";
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.kushal.player_plugin;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+
+/**
+ * The thread on which the plugin builds, prepares and controls its players.
+ *
+ * <p>It is the application thread of every player, so player listeners are called on it, and it
+ * owns the {@link PlayerPool} and the {@link DrmSessionCache}. Method calls arrive on the main
+ * thread and are posted here in order, so a call made right after {@code create} runs once the
+ * player is built. Keeping this work off the main thread keeps the UI from dropping frames while
+ * players are created.
+ */
+final class PlaybackThread {
+    private static PlaybackThread instance;
+
+    private final Handler handler;
+
+    private PlaybackThread() {
+        HandlerThread thread = new HandlerThread("PlayerPlugin:Playback");
+        thread.start();
+        handler = new Handler(thread.getLooper());
+    }
+
+    static synchronized PlaybackThread getInstance() {
+        if (instance == null) {
+            instance = new PlaybackThread();
+        }
+        return instance;
+    }
+
+    Looper getLooper() {
+        return handler.getLooper();
+    }
+
+    Handler getHandler() {
+        return handler;
+    }
+
+    void post(Runnable runnable) {
+        handler.post(runnable);
+    }
+}
@@ -0,0 +1,71 @@
+package com.kushal.player_plugin;
+
+import com.google.android.exoplayer2.upstream.Allocation;
+import com.google.android.exoplayer2.upstream.DefaultAllocator;
+
+/**
+ * The allocator of one player, which takes its segments from the shared {@link SegmentPool} and
+ * returns them there.
+ *
+ * <p>It extends {@link DefaultAllocator} only because {@code DefaultLoadControl} requires one. None
+ * of the state of the superclass is used. The load control weighs the bytes allocated against the
+ * target buffer size of the player, so only the bytes of this player are reported; the budget of
+ * the pool is enforced by {@link PooledLoadControl}.
+ */
+final class PlayerAllocator extends DefaultAllocator {
+    private final SegmentPool pool;
+    private int allocatedCount;
+
+    PlayerAllocator(SegmentPool pool) {
+        super(/* trimOnReset= */ false, SegmentPool.SEGMENT_SIZE);
+        this.pool = pool;
+    }
+
+    /** Returns the bytes of the segments this player holds. */
+    synchronized int getAllocatedBytes() {
+        return allocatedCount * SegmentPool.SEGMENT_SIZE;
+    }
+
+    @Override
+    public synchronized void reset() {
+        // Released segments are pooled, so there is nothing to trim.
+    }
+
+    @Override
+    public synchronized void setTargetBufferSize(int targetBufferSize) {
+        // The pool trims itself to its own budget.
+    }
+
+    @Override
+    public synchronized Allocation allocate() {
+        allocatedCount++;
+        return pool.allocate();
+    }
+
+    @Override
+    public synchronized void release(Allocation allocation) {
+        allocatedCount--;
+        pool.release(allocation);
+    }
+
+    @Override
+    public synchronized void release(Allocation[] allocations) {
+        allocatedCount -= allocations.length;
+        pool.release(allocations);
+    }
+
+    @Override
+    public synchronized void trim() {
+        // Segments are kept in the pool for other players, and trimmed under memory pressure.
+    }
+
+    @Override
+    public synchronized int getTotalBytesAllocated() {
+        return getAllocatedBytes();
+    }
+
+    @Override
+    public int getIndividualAllocationLength() {
+        return SegmentPool.SEGMENT_SIZE;
+    }
+}
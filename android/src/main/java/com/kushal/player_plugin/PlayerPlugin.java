@@ -7,69 +7,61 @@ package com.kushal.player_plugin;
 import static com.google.android.exoplayer2.Player.REPEAT_MODE_ALL;
 import static com.google.android.exoplayer2.Player.REPEAT_MODE_OFF;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.net.Uri;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.LongSparseArray;
 import android.view.Surface;
 
 import androidx.annotation.RequiresApi;
 
 import com.google.android.exoplayer2.C;
-import com.google.android.exoplayer2.DefaultLoadControl;
-import com.google.android.exoplayer2.DefaultRenderersFactory;
 import com.google.android.exoplayer2.ExoPlaybackException;
-import com.google.android.exoplayer2.ExoPlayerFactory;
 import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.IllegalSeekPositionException;
 import com.google.android.exoplayer2.PlaybackParameters;
 import com.google.android.exoplayer2.Player;
 import com.google.android.exoplayer2.Player.EventListener;
+import com.google.android.exoplayer2.SeekParameters;
 import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.google.android.exoplayer2.Timeline;
 import com.google.android.exoplayer2.audio.AudioAttributes;
 import com.google.android.exoplayer2.drm.DefaultDrmSessionManager;
 import com.google.android.exoplayer2.drm.ExoMediaCrypto;
-import com.google.android.exoplayer2.drm.FrameworkMediaCrypto;
-import com.google.android.exoplayer2.drm.FrameworkMediaDrm;
-import com.google.android.exoplayer2.drm.LocalMediaDrmCallback;
 import com.google.android.exoplayer2.drm.UnsupportedDrmException;
 import com.google.android.exoplayer2.extractor.DefaultExtractorsFactory;
+import com.google.android.exoplayer2.source.ConcatenatingMediaSource;
 import com.google.android.exoplayer2.source.ExtractorMediaSource;
 import com.google.android.exoplayer2.source.MediaSource;
+import com.google.android.exoplayer2.source.MergingMediaSource;
 import com.google.android.exoplayer2.source.ProgressiveMediaSource;
-import com.google.android.exoplayer2.source.TrackGroup;
+import com.google.android.exoplayer2.source.ShuffleOrder;
+import com.google.android.exoplayer2.source.SingleSampleMediaSource;
 import com.google.android.exoplayer2.source.TrackGroupArray;
 import com.google.android.exoplayer2.source.dash.DashMediaSource;
 import com.google.android.exoplayer2.source.dash.DefaultDashChunkSource;
+import com.google.android.exoplayer2.source.hls.HlsDataSourceFactory;
 import com.google.android.exoplayer2.source.hls.HlsMediaSource;
 import com.google.android.exoplayer2.source.smoothstreaming.DefaultSsChunkSource;
 import com.google.android.exoplayer2.source.smoothstreaming.SsMediaSource;
-import com.google.android.exoplayer2.trackselection.AdaptiveTrackSelection;
 import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
 import com.google.android.exoplayer2.trackselection.MappingTrackSelector;
-import com.google.android.exoplayer2.trackselection.TrackSelection;
 import com.google.android.exoplayer2.ui.DefaultTrackNameProvider;
 import com.google.android.exoplayer2.ui.TrackNameProvider;
 import com.google.android.exoplayer2.upstream.BandwidthMeter;
 import com.google.android.exoplayer2.upstream.DataSource;
-import com.google.android.exoplayer2.upstream.DefaultAllocator;
 import com.google.android.exoplayer2.upstream.DefaultBandwidthMeter;
 import com.google.android.exoplayer2.upstream.DefaultDataSourceFactory;
 import com.google.android.exoplayer2.upstream.DefaultHttpDataSource;
-import com.google.android.exoplayer2.upstream.DefaultHttpDataSourceFactory;
-import com.google.android.exoplayer2.upstream.FileDataSourceFactory;
-import com.google.android.exoplayer2.upstream.HttpDataSource;
-import com.google.android.exoplayer2.upstream.TransferListener;
-import com.google.android.exoplayer2.upstream.cache.Cache;
-import com.google.android.exoplayer2.upstream.cache.CacheDataSource;
-import com.google.android.exoplayer2.upstream.cache.CacheDataSourceFactory;
-import com.google.android.exoplayer2.upstream.cache.NoOpCacheEvictor;
-import com.google.android.exoplayer2.upstream.cache.SimpleCache;
-import com.google.android.exoplayer2.util.Assertions;
+import com.google.android.exoplayer2.util.MimeTypes;
 import com.google.android.exoplayer2.util.Util;
 import com.google.android.exoplayer2.video.VideoListener;
 
-import org.json.JSONArray;
-
 import io.flutter.plugin.common.EventChannel;
 import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.common.MethodChannel;
@@ -80,201 +72,427 @@ import io.flutter.plugin.common.PluginRegistry.Registrar;
 import io.flutter.view.FlutterNativeView;
 import io.flutter.view.TextureRegistry;
 
-import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.UUID;
 
 public class PlayerPlugin implements MethodCallHandler {
     private static final String TAG = "VideoPlayerPlugin";
-    private static FrameworkMediaDrm mediaDrm;
-    private static final String DOWNLOAD_CONTENT_DIRECTORY = "downloads";
+    private static final long DEFAULT_PRELOAD_DURATION_MS = 5_000;
 
-    private static class VideoPlayer {
+    private static class VideoPlayer implements ResourceGovernor.Member {
         private DefaultBandwidthMeter BANDWIDTH_METER;
 
         private SimpleExoPlayer exoPlayer;
 
+        private final PlayerPool playerPool;
+
+        private final ResourceGovernor resourceGovernor;
+
+        private final LoadControlProfile loadControlProfile;
+
+        private PlayerPool.PooledPlayer pooledPlayer;
+
+        private EventListener eventListener;
+
+        private VideoListener videoListener;
+
         private Surface surface;
 
         private final TextureRegistry.SurfaceTextureEntry textureEntry;
 
         private QueuingEventSink eventSink = new QueuingEventSink();
 
+        private EventCodec eventCodec;
+
         private final EventChannel eventChannel;
 
         private boolean isInitialized = false;
         private DefaultTrackSelector trackSelector;
+        private TrackNameProvider trackNameProvider;
+
+        private Context context;
+        private DrmSessionCache drmSessionCache;
+        private DefaultDrmSessionManager<ExoMediaCrypto> drmSessionManager;
+        private DataSource.Factory manifestDataSourceFactory;
+        private DataSource.Factory mediaDataSourceFactory;
+        private ConcatenatingMediaSource playlistSource;
+        // Identifies the current playlist item regardless of its index, which shifts as items before it are
+        // removed or moved.
+        private Object currentItemUid;
+        private MediaSource mediaSource;
+        // The manifest cache key under which the initialized event of the media is kept, if streamed.
+        private String initializedKey;
+        // A demoted player released its renderers and buffers to the resource governor, and is prepared
+        // again when played.
+        private boolean demoted;
+        private long demotions;
+
+        private final Handler mainHandler = new Handler(Looper.getMainLooper());
+        private final Handler tickHandler = PlaybackThread.getInstance().getHandler();
+        private long tickIntervalMs;
+        private final Runnable tick = new Runnable() {
+            @Override
+            public void run() {
+                sendTick();
+                tickHandler.postDelayed(this, tickIntervalMs);
+            }
+        };
+
+        private String abrStrategy = AbrTrackSelection.STRATEGY_THROUGHPUT;
+
+        private LiveCatchUpController liveCatchUp;
+        private final Timeline.Window window = new Timeline.Window();
+        private float speed = 1f;
+        private float speedAdjustment = 1f;
+        // Whether the live catch-up seeked since the last evaluation, and whether that seek left the latency
+        // beyond the maximum drift. The latency is then skewed, by the device clock or the program date
+        // times of the stream, and seeking again would only rebuffer, so drift is corrected by speed alone
+        // until the latency is back within the maximum drift.
+        private boolean liveCatchUpSeeked;
+        private boolean liveCatchUpSeekIneffective;
+        private final Runnable liveCatchUpRunnable = new Runnable() {
+            @Override
+            public void run() {
+                updateLiveCatchUp();
+                tickHandler.postDelayed(this, LiveCatchUpController.EVALUATION_INTERVAL_MS);
+            }
+        };
+
+        // A seek is in flight from seekTo until the player has processed it. Newer seeks meanwhile
+        // replace each other, and only the newest is started once the player is done.
+        private boolean seekInFlight;
+        private long pendingSeekPositionMs = C.TIME_UNSET;
+        private SeekParameters pendingSeekParameters;
+        private long seeksCoalesced;
+
+        private final long createdRealtimeMs = SystemClock.elapsedRealtime();
+        // Start times of the spans from create to the initialized event, and from prepare to ready, or 0
+        // once recorded or if tracing is off.
+        private long createTraceStartNs = Tracer.now();
+        private long prepareTraceStartNs;
+        private QoeMetrics metrics;
+        private long statsIntervalMs;
+        private final Runnable statsRunnable = new Runnable() {
+            @Override
+            public void run() {
+                Map<String, Object> event = new HashMap<>();
+                event.put("event", "stats");
+                event.put("values", getStats());
+                eventSink.success(event);
+                tickHandler.postDelayed(this, statsIntervalMs);
+            }
+        };
 
-        VideoPlayer(Context context, EventChannel eventChannel, TextureRegistry.SurfaceTextureEntry textureEntry,
-                    String dataSource, Result result) {
+        /**
+         * Sets up the event channel of the player, which must happen on the main thread. Everything else
+         * happens on the {@link PlaybackThread}, starting with {@link #openAsset} or
+         * {@link #openMediaContent}.
+         */
+        VideoPlayer(Context context, PlayerPool playerPool, ResourceGovernor resourceGovernor,
+                    LoadControlProfile loadControlProfile, DrmSessionCache drmSessionCache,
+                    EventChannel eventChannel, TextureRegistry.SurfaceTextureEntry textureEntry) {
+            this.context = context;
+            this.playerPool = playerPool;
+            this.resourceGovernor = resourceGovernor;
+            this.loadControlProfile = loadControlProfile;
+            this.drmSessionCache = drmSessionCache;
             this.eventChannel = eventChannel;
             this.textureEntry = textureEntry;
+            eventChannel.setStreamHandler(eventSink.getStreamHandler());
+        }
 
-            BANDWIDTH_METER =new DefaultBandwidthMeter.Builder(context).build();
-
-            trackSelector = new DefaultTrackSelector();
-            exoPlayer = ExoPlayerFactory.newSimpleInstance(context, trackSelector);
+        void openAsset(String dataSource) {
+            acquirePlayer();
 
             Uri uri = Uri.parse(dataSource);
 
+            DataSource.Factory manifestDataSourceFactory;
             DataSource.Factory dataSourceFactory;
             if (isFileOrAsset(uri)) {
-                dataSourceFactory = new DefaultDataSourceFactory(context, "ExoPlayerDemo");
+                dataSourceFactory = new DefaultDataSourceFactory(context, HttpStack.getInstance(context));
+                manifestDataSourceFactory = dataSourceFactory;
             } else {
-                dataSourceFactory = new DefaultHttpDataSourceFactory("ExoPlayer", null,
-                        DefaultHttpDataSource.DEFAULT_CONNECT_TIMEOUT_MILLIS, DefaultHttpDataSource.DEFAULT_READ_TIMEOUT_MILLIS,
-                        true);
+                manifestDataSourceFactory = ManifestCache.getInstance(context)
+                        .buildDataSourceFactory(HttpStack.getInstance(context));
+                dataSourceFactory = MediaCache.getInstance(context)
+                        .buildCacheDataSourceFactory(HttpStack.getInstance(context));
+                initializedKey = ManifestCache.getKey(dataSource);
+            }
+            long traceStartNs = Tracer.begin("buildMediaSource");
+            try {
+                mediaSource = buildMediaSource(uri, null, manifestDataSourceFactory, dataSourceFactory, context, null,
+                        liveCatchUp);
+            } finally {
+                Tracer.end(textureEntry.id(), "buildMediaSource", traceStartNs);
             }
-            MediaSource mediaSource = buildMediaSource(uri, null, dataSourceFactory, context, null);
-            exoPlayer.prepare(mediaSource);
+            prepare(mediaSource);
 
-            setupVideoPlayer(eventChannel, textureEntry, result, context);
+            setupVideoPlayer(textureEntry, context);
+            sendCachedInitialized();
         }
 
-        VideoPlayer(Context context, final EventChannel eventChannel, TextureRegistry.SurfaceTextureEntry textureEntry,
-                    MediaContent mediaContent, Result result) {
-            BANDWIDTH_METER =new DefaultBandwidthMeter.Builder(context).build();
-            this.eventChannel = eventChannel;
-            this.textureEntry = textureEntry;
-            DefaultDrmSessionManager<ExoMediaCrypto> drmSessionManager = null;
-            // Add Custom DRM Management
-
-            if (mediaContent.drm_scheme != null) {
-                String drmLicenseUrl = mediaContent.drm_license_url;// WIDEVINE EXAMPLE
-                String[] keyRequestPropertiesArray = null;
-                boolean multiSession = false;
-                String errorStringId = "An unknown DRM error occurred";
-                if (Util.SDK_INT < 18) {
-                    errorStringId = "Protected content not supported on API levels below 18";
-                } else {
-                    try {
-                        UUID drmSchemeUuid = Util.getDrmUuid("widevine");
+        private void prepare(MediaSource mediaSource) {
+            long traceStartNs = Tracer.begin("prepare");
+            prepareTraceStartNs = traceStartNs;
+            try {
+                exoPlayer.prepare(mediaSource);
+            } finally {
+                Tracer.end(textureEntry.id(), "prepare", traceStartNs);
+            }
+        }
 
-                        if (drmSchemeUuid == null) {
-                            errorStringId = "This device does not support the required DRM scheme";
-                        } else {
-                            drmSessionManager = buildDrmSessionManagerV18(drmSchemeUuid, drmLicenseUrl, keyRequestPropertiesArray,
-                                    multiSession, mediaContent.localMediaDRMCallbackKey);
-                        }
-                    } catch (UnsupportedDrmException e) {
-                        errorStringId = e.reason == UnsupportedDrmException.REASON_UNSUPPORTED_SCHEME
-                                ? "This device does not support the required DRM scheme"
-                                : "An unknown DRM error occurred";
-                    }
-                }
-                if (drmSessionManager == null) {
+        /**
+         * Builds the player for {@code mediaContent} and prepares it. Failures are reported as errors on
+         * the event channel, after which {@link #isCreated()} is false.
+         */
+        void openMediaContent(MediaContent mediaContent) {
+            if (mediaContent.drm_scheme != null && !mediaContent.drm_scheme.isEmpty()) {
+                long traceStartNs = Tracer.begin("drmSessionManager");
+                try {
+                    DrmSessionCache.Entry drmEntry = drmSessionCache.getEntry(mediaContent.drm_scheme,
+                            mediaContent.drm_license_url, mediaContent.localMediaDRMCallbackKey);
+                    drmSessionManager = drmSessionCache.buildSessionManager(drmEntry, mediaContent.uri,
+                            mediaContent.extension);
+                } catch (UnsupportedDrmException e) {
+                    String errorString = Util.SDK_INT < 18 ? "Protected content not supported on API levels below 18"
+                            : e.reason == UnsupportedDrmException.REASON_UNSUPPORTED_SCHEME
+                            ? "This device does not support the required DRM scheme"
+                            : "An unknown DRM error occurred";
+                    eventSink.error("drm_unsupported", errorString, null);
                     return;
+                } finally {
+                    Tracer.end(textureEntry.id(), "drmSessionManager", traceStartNs);
                 }
             }
 
-            DefaultRenderersFactory renderersFactory = new DefaultRenderersFactory(context);
-            TrackSelection.Factory trackSelectionFactory;
-            DefaultTrackSelector.Parameters trackSelectorParameters;
-            trackSelectionFactory = new AdaptiveTrackSelection.Factory();
-            trackSelector = new DefaultTrackSelector(context, trackSelectionFactory);
-            trackSelectorParameters = new DefaultTrackSelector.ParametersBuilder(context).build();
-            trackSelector.setParameters(trackSelectorParameters);
-            DefaultAllocator defaultAllocator = new DefaultAllocator(true, C.DEFAULT_BUFFER_SEGMENT_SIZE);
-            DefaultLoadControl defaultLoadControl = new DefaultLoadControl();
-            exoPlayer = new SimpleExoPlayer.Builder(/* context= */ context, renderersFactory)
-                    .setBandwidthMeter(BANDWIDTH_METER).setLoadControl(defaultLoadControl)
-                    .setTrackSelector(trackSelector)
-                    .build();
-            exoPlayer.setAudioAttributes(AudioAttributes.DEFAULT, /* handleAudioFocus= */ true);
-//            ExoPlayerFactory.newSimpleInstance(context, renderersFactory, trackSelector,
-//                    defaultLoadControl, drmSessionManager);
-            // exoPlayer = ExoPlayerFactory.newSimpleInstance(context, trackSelector);
-            Uri uri = Uri.parse(mediaContent.uri);
-            exoPlayer.addVideoListener(new VideoListener() {
+            acquirePlayer();
+            videoListener = new VideoListener() {
                 @Override
                 public void onVideoSizeChanged(int width, int height, int unappliedRotationDegrees, float pixelWidthHeightRatio) {
-                    Map<String, Object> event = new HashMap<>();
-                    event.put("event", "autoFormat");
-                    event.put("autoFormat", height+"p");
-                    eventSink.success(event);
+                    sendAutoFormat(height);
                 }
-            });
+            };
+            exoPlayer.addVideoListener(videoListener);
+
+            // Manifests bypass the media cache and go through the manifest cache, which keeps live playlists
+            // no longer than their refresh interval. Every player shares the HTTP stack, and so its connections.
+            manifestDataSourceFactory = ManifestCache.getInstance(context)
+                    .buildDataSourceFactory(HttpStack.getInstance(context));
+            mediaDataSourceFactory = MediaCache.getInstance(context)
+                    .buildCacheDataSourceFactory(HttpStack.getInstance(context));
+            if (!isFileOrAsset(Uri.parse(mediaContent.uri))) {
+                initializedKey = ManifestCache.getKey(mediaContent.uri);
+            }
 
-            DataSource.Factory dataSourceFactory;
-            MediaSource mediaSource;
+            long traceStartNs = Tracer.begin("buildMediaSource");
+            try {
+                playlistSource = buildPlaylistSource(mediaContent);
+            } finally {
+                Tracer.end(textureEntry.id(), "buildMediaSource", traceStartNs);
+            }
+            mediaSource = playlistSource;
+            prepare(playlistSource);
+            setupVideoPlayer(textureEntry, context);
+            sendCachedInitialized();
+        }
+
+        private ConcatenatingMediaSource buildPlaylistSource(MediaContent mediaContent) {
+            List<String> items = new ArrayList<>();
+            items.add(mediaContent.uri);
+            if (mediaContent.playlist != null) {
+                items.addAll(mediaContent.playlist);
+            }
+            MediaSource[] mediaSources = new MediaSource[items.size()];
+            for (int i = 0; i < mediaSources.length; i++) {
+                mediaSources[i] = buildPlaylistItem(items.get(i), mediaContent.extension);
+            }
+            mediaSources[0] = withSubtitles(mediaSources[0], mediaContent.subtitlesLink);
+            // Lazy preparation only prepares an item once the player reads ahead into it, which is still early
+            // enough to buffer it while the previous item plays.
+            return new ConcatenatingMediaSource(/* isAtomic= */ false, /* useLazyPreparation= */ true,
+                    new ShuffleOrder.DefaultShuffleOrder(/* length= */ 0), mediaSources);
+        }
+
+        private MediaSource buildPlaylistItem(String uriString, String extension) {
+            // Downloads are identified by their uri, and are played from local storage only.
+            MediaSource downloaded = OfflineDownloads.getInstance(context).buildMediaSource(uriString);
+            if (downloaded != null) {
+                return downloaded;
+            }
+            Uri uri = Uri.parse(uriString);
             if (isFileOrAsset(uri)) {
-                dataSourceFactory = new DefaultDataSourceFactory(context, "ExoPlayer");
-                mediaSource = buildMediaSource(uri, "", dataSourceFactory, context, drmSessionManager);
-            } else {
-                dataSourceFactory = new DefaultHttpDataSourceFactory("ExoPlayer", null,
-                        DefaultHttpDataSource.DEFAULT_CONNECT_TIMEOUT_MILLIS, DefaultHttpDataSource.DEFAULT_READ_TIMEOUT_MILLIS,
-                        true);
-                mediaSource = buildMediaSource(uri, mediaContent.extension, dataSourceFactory, context, drmSessionManager);
+                DataSource.Factory dataSourceFactory = new DefaultDataSourceFactory(context, HttpStack.getInstance(context));
+                return buildMediaSource(uri, "", dataSourceFactory, dataSourceFactory, context, drmSessionManager,
+                        liveCatchUp);
             }
-            exoPlayer.prepare(mediaSource);
-            setupVideoPlayer(eventChannel, textureEntry, result, context);
+            return buildMediaSource(uri, extension, manifestDataSourceFactory, mediaDataSourceFactory, context,
+                    drmSessionManager, liveCatchUp);
         }
 
-        private static boolean isFileOrAsset(Uri uri) {
-            if (uri == null || uri.getScheme() == null) {
-                return false;
+        /**
+         * Merges the side-loaded subtitle files at {@code subtitleUris} into {@code mediaSource}, so that
+         * they are listed and selected like embedded text tracks.
+         *
+         * <p>A subtitle file is only fetched once its track is selected, as the player does not load
+         * the periods of unselected merged sources. Files go through the media cache, so selecting a
+         * language again, in this or a later player, does not download it again.
+         */
+        private MediaSource withSubtitles(MediaSource mediaSource, List<String> subtitleUris) {
+            if (subtitleUris == null || subtitleUris.isEmpty()) {
+                return mediaSource;
             }
-            String scheme = uri.getScheme();
-            return scheme.equals("file") || scheme.equals("asset");
+            SingleSampleMediaSource.Factory subtitleFactory = new SingleSampleMediaSource.Factory(mediaDataSourceFactory);
+            List<MediaSource> sources = new ArrayList<>();
+            sources.add(mediaSource);
+            for (int i = 0; i < subtitleUris.size(); i++) {
+                Uri uri = Uri.parse(subtitleUris.get(i));
+                String mimeType = inferSubtitleMimeType(uri);
+                if (mimeType == null) {
+                    continue;
+                }
+                Format format = Format.createTextContainerFormat("subtitle:" + i, uri.getLastPathSegment(),
+                        /* containerMimeType= */ null, mimeType, /* codecs= */ null, Format.NO_VALUE,
+                        /* selectionFlags= */ 0, /* roleFlags= */ 0, /* language= */ null);
+                sources.add(subtitleFactory.createMediaSource(uri, format, C.TIME_UNSET));
+            }
+            if (sources.size() == 1) {
+                return mediaSource;
+            }
+            return new MergingMediaSource(sources.toArray(new MediaSource[0]));
         }
 
-        private DataSource.Factory buildDataSourceFactory(boolean useBandwidthMeter, Context context) {
-            return buildDataSourceFactory(useBandwidthMeter ? BANDWIDTH_METER : null, context);
+        /** Returns the sample mime type of the subtitle file at {@code uri}, or null if it is not supported. */
+        private static String inferSubtitleMimeType(Uri uri) {
+            String path = uri.getLastPathSegment();
+            if (path == null) {
+                return null;
+            }
+            path = Util.toLowerInvariant(path);
+            if (path.endsWith(".vtt") || path.endsWith(".webvtt")) {
+                return MimeTypes.TEXT_VTT;
+            } else if (path.endsWith(".srt")) {
+                return MimeTypes.APPLICATION_SUBRIP;
+            } else if (path.endsWith(".ttml") || path.endsWith(".dfxp") || path.endsWith(".xml")) {
+                return MimeTypes.APPLICATION_TTML;
+            } else if (path.endsWith(".ssa") || path.endsWith(".ass")) {
+                return MimeTypes.TEXT_SSA;
+            }
+            return null;
         }
 
-        public DataSource.Factory buildDataSourceFactory(TransferListener listener, Context context) {
-            DefaultDataSourceFactory upstreamFactory = new DefaultDataSourceFactory(context, listener,
-                    buildHttpDataSourceFactory(listener, context));
-            return buildReadOnlyCacheDataSource(upstreamFactory, getDownloadCache());
+        boolean isCreated() {
+            return exoPlayer != null;
         }
 
-        /**
-         * Returns a {@link HttpDataSource.Factory}.
-         */
-        public HttpDataSource.Factory buildHttpDataSourceFactory(TransferListener listener, Context context) {
-            String userAgent = Util.getUserAgent(context, "ExoPlayerDemo");
-            return new DefaultHttpDataSourceFactory(userAgent, listener);
+        boolean hasPlaylist() {
+            return playlistSource != null;
         }
 
-        private synchronized Cache getDownloadCache() {
-            Cache downloadCache;
-            File downloadContentDirectory = new File(getDownloadDirectory(), DOWNLOAD_CONTENT_DIRECTORY);
-            downloadCache = new SimpleCache(downloadContentDirectory, new NoOpCacheEvictor());
-            return downloadCache;
+        void addPlaylistItem(int index, String uri, String extension) {
+            MediaSource mediaSource = buildPlaylistItem(uri, extension);
+            if (index < 0) {
+                playlistSource.addMediaSource(mediaSource);
+            } else {
+                playlistSource.addMediaSource(index, mediaSource);
+            }
         }
 
-        private File getDownloadDirectory() {
-            File downloadDirectory = new File("");
-            return downloadDirectory;
+        void removePlaylistItem(int index) {
+            playlistSource.removeMediaSource(index);
         }
 
-        private static CacheDataSourceFactory buildReadOnlyCacheDataSource(DefaultDataSourceFactory upstreamFactory,
-                                                                           Cache cache) {
-            return new CacheDataSourceFactory(cache, upstreamFactory, new FileDataSourceFactory(),
-                    /* cacheWriteDataSinkFactory= */ null, CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR, /* eventListener= */ null);
+        void movePlaylistItem(int fromIndex, int toIndex) {
+            playlistSource.moveMediaSource(fromIndex, toIndex);
         }
 
-        private MediaSource buildMediaSource(Uri uri, String extension, DataSource.Factory mediaDataSourceFactory,
-                                             Context context, DefaultDrmSessionManager<ExoMediaCrypto> drmSessionManager) {
+        private void maybeSendItemTransition(String reason) {
+            Timeline timeline = exoPlayer.getCurrentTimeline();
+            if (timeline.isEmpty()) {
+                return;
+            }
+            int itemIndex = exoPlayer.getCurrentWindowIndex();
+            Object itemUid = timeline.getWindow(itemIndex, window).uid;
+            if (currentItemUid == null || itemUid.equals(currentItemUid)) {
+                // The first item is reported by the initialized event.
+                currentItemUid = itemUid;
+                return;
+            }
+            currentItemUid = itemUid;
+            // Lazily prepared and live items have no duration yet.
+            long duration = exoPlayer.getDuration() != C.TIME_UNSET ? exoPlayer.getDuration() : -1;
+            if (eventCodec != null) {
+                byte binaryReason = reason.equals("auto") ? EventCodec.REASON_AUTO
+                        : reason.equals("seek") ? EventCodec.REASON_SEEK : EventCodec.REASON_PLAYLIST_CHANGED;
+                eventSink.success(eventCodec.encodeItemTransition(itemIndex, duration, binaryReason));
+                return;
+            }
+            Map<String, Object> event = new HashMap<>();
+            event.put("event", "itemTransition");
+            event.put("index", itemIndex);
+            event.put("reason", reason);
+            event.put("duration", duration);
+            eventSink.success(event);
+        }
+
+        private void acquirePlayer() {
+            pooledPlayer = playerPool.acquire(loadControlProfile);
+            exoPlayer = pooledPlayer.exoPlayer;
+            trackSelector = pooledPlayer.trackSelector;
+            pooledPlayer.abrFactory.setStrategy(abrStrategy);
+            BANDWIDTH_METER = pooledPlayer.bandwidthMeter;
+            metrics = new QoeMetrics(createdRealtimeMs);
+            exoPlayer.addAnalyticsListener(metrics);
+        }
+
+        private static boolean isFileOrAsset(Uri uri) {
+            if (uri == null || uri.getScheme() == null) {
+                return false;
+            }
+            String scheme = uri.getScheme();
+            return scheme.equals("file") || scheme.equals("asset");
+        }
+
+        /**
+         * Builds the media source of the type inferred from {@code uri} and {@code extension}, which
+         * starts live streams at the target offset of {@code liveCatchUp} if it is not null.
+         */
+        static MediaSource buildMediaSource(Uri uri, String extension, final DataSource.Factory manifestDataSourceFactory,
+                                            final DataSource.Factory mediaDataSourceFactory, Context context,
+                                            DefaultDrmSessionManager<ExoMediaCrypto> drmSessionManager,
+                                            LiveCatchUpController liveCatchUp) {
             @C.ContentType
             int contenttype = Util.inferContentType(uri, extension);
             int type = Util.inferContentType(uri.getLastPathSegment());
             switch (contenttype) {
-                case C.TYPE_SS:
-                    return new SsMediaSource.Factory(new DefaultSsChunkSource.Factory(mediaDataSourceFactory),
-                            new DefaultDataSourceFactory(context, null, mediaDataSourceFactory)).setDrmSessionManager(drmSessionManager).createMediaSource(uri);
-                case C.TYPE_DASH:
-                    return new DashMediaSource.Factory(new DefaultDashChunkSource.Factory(mediaDataSourceFactory),
-                            new DefaultDataSourceFactory(context, null, mediaDataSourceFactory)).setDrmSessionManager(drmSessionManager).createMediaSource(uri);
+                case C.TYPE_SS: {
+                    SsMediaSource.Factory factory = new SsMediaSource.Factory(new DefaultSsChunkSource.Factory(mediaDataSourceFactory),
+                            new DefaultDataSourceFactory(context, null, manifestDataSourceFactory)).setDrmSessionManager(drmSessionManager);
+                    if (liveCatchUp != null) {
+                        factory.setLivePresentationDelayMs(liveCatchUp.targetOffsetMs);
+                    }
+                    return factory.createMediaSource(uri);
+                }
+                case C.TYPE_DASH: {
+                    DashMediaSource.Factory factory = new DashMediaSource.Factory(new DefaultDashChunkSource.Factory(mediaDataSourceFactory),
+                            new DefaultDataSourceFactory(context, null, manifestDataSourceFactory)).setDrmSessionManager(drmSessionManager);
+                    if (liveCatchUp != null) {
+                        // Starts at the target offset instead of the suggested presentation delay of the manifest.
+                        factory.setLivePresentationDelayMs(liveCatchUp.targetOffsetMs, /* overridesManifest= */ true);
+                    }
+                    return factory.createMediaSource(uri);
+                }
                 case C.TYPE_HLS:
-                    return new HlsMediaSource.Factory(mediaDataSourceFactory).setDrmSessionManager(drmSessionManager).createMediaSource(uri);
+                    return new HlsMediaSource.Factory(new HlsDataSourceFactory() {
+                        @Override
+                        public DataSource createDataSource(int dataType) {
+                            return dataType == C.DATA_TYPE_MANIFEST ? manifestDataSourceFactory.createDataSource()
+                                    : mediaDataSourceFactory.createDataSource();
+                        }
+                    }).setDrmSessionManager(drmSessionManager).createMediaSource(uri);
                 case C.TYPE_OTHER:
                     return new ProgressiveMediaSource.Factory(mediaDataSourceFactory)
                             .setDrmSessionManager(drmSessionManager)
@@ -285,26 +503,12 @@ public class PlayerPlugin implements MethodCallHandler {
             }
         }
 
-        private void setupVideoPlayer(EventChannel eventChannel, TextureRegistry.SurfaceTextureEntry textureEntry,
-                                      Result result, final Context context) {
-
-            eventChannel.setStreamHandler(new EventChannel.StreamHandler() {
-                @Override
-                public void onListen(Object o, EventChannel.EventSink sink) {
-                    eventSink.setDelegate(sink);
-                }
-
-                @Override
-                public void onCancel(Object o) {
-                    eventSink.setDelegate(null);
-                }
-            });
-
+        private void setupVideoPlayer(TextureRegistry.SurfaceTextureEntry textureEntry, final Context context) {
             surface = new Surface(textureEntry.surfaceTexture());
             exoPlayer.setVideoSurface(surface);
             setAudioAttributes(exoPlayer);
 
-            exoPlayer.addListener(new EventListener() {
+            eventListener = new EventListener() {
 
                 @Override
                 public void onPlayerStateChanged(final boolean playWhenReady, final int playbackState) {
@@ -313,14 +517,57 @@ public class PlayerPlugin implements MethodCallHandler {
                     } else if (playbackState == Player.STATE_READY) {
                         if (!isInitialized) {
                             isInitialized = true;
+                            Tracer.record(textureEntry.id(), "prepareToReady", prepareTraceStartNs);
+                            prepareTraceStartNs = 0;
+                            long traceStartNs = Tracer.begin("getDefaultAudioAndVideo");
                             getDefaultAudioAndVideo(context);
+                            Tracer.end(textureEntry.id(), "getDefaultAudioAndVideo", traceStartNs);
+                            // A player which is still preparing is not managed, as a demoted one would
+                            // never send the initialized event which the Dart side waits for to play it.
+                            resourceGovernor.activate(VideoPlayer.this);
                             // sendInitialized(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
 
                         }
                     } else if (playbackState == Player.STATE_ENDED) {
-                        Map<String, Object> event = new HashMap<>();
-                        event.put("event", "completed");
-                        eventSink.success(event);
+                        sendCompleted();
+                    }
+                }
+
+                @Override
+                public void onPositionDiscontinuity(int reason) {
+                    maybeSendItemTransition(reason == Player.DISCONTINUITY_REASON_PERIOD_TRANSITION ? "auto" : "seek");
+                }
+
+                @Override
+                public void onTimelineChanged(Timeline timeline, int reason) {
+                    maybeSendItemTransition("playlistChanged");
+                }
+
+                @Override
+                public void onSeekProcessed() {
+                    // The player merges the acknowledgements of overlapping seeks, so no seek is pending now.
+                    seekInFlight = false;
+                    if (pendingSeekPositionMs != C.TIME_UNSET) {
+                        long positionMs = pendingSeekPositionMs;
+                        pendingSeekPositionMs = C.TIME_UNSET;
+                        try {
+                            startSeek(positionMs, pendingSeekParameters);
+                        } catch (IllegalSeekPositionException e) {
+                            // The timeline changed since the seek was queued, and its call was already answered.
+                        }
+                    }
+                }
+
+                @Override
+                public void onIsPlayingChanged(boolean isPlaying) {
+                    tickHandler.removeCallbacks(tick);
+                    if (tickIntervalMs > 0) {
+                        // While paused the snapshot cannot change, so only the final one is sent.
+                        if (isPlaying) {
+                            tickHandler.post(tick);
+                        } else {
+                            sendTick();
+                        }
                     }
                 }
 
@@ -330,108 +577,65 @@ public class PlayerPlugin implements MethodCallHandler {
                         eventSink.error("VideoError", "Video player had error " + error, null);
                     }
                 }
-            });
-
-            Map<String, Object> reply = new HashMap<>();
-            reply.put("textureId", textureEntry.id());
-            result.success(reply);
+            };
+            exoPlayer.addListener(eventListener);
+            if (liveCatchUp != null) {
+                tickHandler.postDelayed(liveCatchUpRunnable, LiveCatchUpController.EVALUATION_INTERVAL_MS);
+            }
         }
 
         private void getDefaultAudioAndVideo(Context context) {
-            ArrayList<String> AudioNew = new ArrayList<>();
-            ArrayList<String> ResolutionChange = new ArrayList<>();
-            ArrayList<String> SubtitleNew = new ArrayList<>();
             MappingTrackSelector.MappedTrackInfo mappedTrackInfo = trackSelector.getCurrentMappedTrackInfo();
-            if (mappedTrackInfo != null) {
-                for (int i = 0; i < mappedTrackInfo.getRendererCount(); i++) {
-                    TrackGroupArray trackGroups = mappedTrackInfo.getTrackGroups(i);
-                    if (trackGroups.length != 0) {
-                        switch (exoPlayer.getRendererType(i)) {
-                            case C.TRACK_TYPE_AUDIO:
-                                ArrayList<String> unq = new ArrayList<>();
-                                String name = "DEFAULT", code = "def";
-                                for (int j = 0; j < trackGroups.length; j++) {
-                                    TrackGroup group = trackGroups.get(j);
-                                    if (group.length > 0) {
-                                        for (int k = 0; k < group.length; k++) {
-                                            com.google.android.exoplayer2.Format format = group.getFormat(k);
-//                                            Log.v("kushal audio", format.toString());
-                                            TrackNameProvider trackNameProvider = new DefaultTrackNameProvider(context.getResources());
-                                            trackNameProvider = Assertions.checkNotNull(trackNameProvider);
-//                                            Log.v("kushal audio", trackNameProvider.getTrackName(format) + ":" + format.language);
-                                            unq.add(trackNameProvider.getTrackName(format) + ":" + format.language);
-
-                                        }
-                                    }
-                                }
-                                AudioNew = new ArrayList<String>(new LinkedHashSet<String>(unq));
-                                if (AudioNew.size() > 0)
-                                    trackSelector.setParameters(
-                                            trackSelector.buildUponParameters().setPreferredAudioLanguage(AudioNew.get(0).split(":")[1]));
-                                break;
-                            case C.TRACK_TYPE_VIDEO:
-                                ArrayList<Integer> unq1 = new ArrayList<>();
-                                ArrayList<String> unqBitrate = new ArrayList<>();
-                                for (int j = 0; j < trackGroups.length; j++) {
-                                    TrackGroup group = trackGroups.get(j);
-                                    if (group.length > 0) {
-                                        for (int k = 0; k < group.length; k++) {
-                                            com.google.android.exoplayer2.Format format = group.getFormat(k);
-                                            unqBitrate.add(format.width + " X " + format.height + "p:"+format.bitrate);
-                                            unq1.add(format.height);
-//                                            Log.v("kushal video", format.width + " X " + format.height);
-                                        }
-                                    }
-                                }
-                                ResolutionChange = unqBitrate;
-                                final long defaultMaxInitialBitrate = BANDWIDTH_METER.getBitrateEstimate();
-                                trackSelector.setParameters(trackSelector.buildUponParameters().setMaxVideoBitrate((int) defaultMaxInitialBitrate));
-//                trackSelector.setParameters(trackSelector.buildUponParameters().setMaxVideoSize(
-//                    Integer.parseInt(ResolutionChange.get(0).split(" X ")[0]),
-//                    Integer.parseInt((ResolutionChange.get(0).split(" X ")[0]).replace("p", ""))));
-                                break;
-                            case C.TRACK_TYPE_TEXT:
-                                ArrayList<String> vtt = new ArrayList<>();
-                                String nameVTT = "DEFAULT", codeVTT = "def";
-                                for (int j = 0; j < trackGroups.length; j++) {
-                                    TrackGroup group = trackGroups.get(j);
-                                    if (group.length > 0) {
-                                        for (int k = 0; k < group.length; k++) {
-                                            com.google.android.exoplayer2.Format format = group.getFormat(k);
-                                            TrackNameProvider trackNameProvider = new DefaultTrackNameProvider(context.getResources());
-                                            trackNameProvider = Assertions.checkNotNull(trackNameProvider);
-//                                            Log.v("kushal subtitle", trackNameProvider.getTrackName(format));
-                                            vtt.add(trackNameProvider.getTrackName(format) + ":" + format.language);
-                                            if (k == 0) {
-                                                String part[] = trackNameProvider.getTrackName(format).split(",");
-                                                name = part[0];
-                                                code = format.language;
-                                            }
-                                        }
-                                    }
-                                }
-                                SubtitleNew = new ArrayList<String>(new LinkedHashSet<String>(vtt));
-                                if (SubtitleNew.size() > 0)
-                                    trackSelector.setParameters(
-                                            trackSelector.buildUponParameters().setPreferredTextLanguage(SubtitleNew.get(0).split(":")[1]));
-
-                                break;
-                            default:
-                                break;
-                        }
-                    }
-                }
+            if (trackNameProvider == null) {
+                trackNameProvider = new DefaultTrackNameProvider(context.getResources());
+            }
+            TrackDescriptors tracks = mappedTrackInfo != null
+                    ? TrackDescriptors.build(mappedTrackInfo, trackNameProvider) : new TrackDescriptors();
+            DefaultTrackSelector.ParametersBuilder parameters = trackSelector.buildUponParameters();
+            if (!tracks.audios.isEmpty()) {
+                parameters.setPreferredAudioLanguage((String) tracks.audios.get(0).get("language"));
+            }
+            if (!tracks.videos.isEmpty()) {
+                parameters.setMaxVideoBitrate((int) BANDWIDTH_METER.getBitrateEstimate());
+            }
+            if (!tracks.texts.isEmpty()) {
+                parameters.setPreferredTextLanguage((String) tracks.texts.get(0).get("language"));
             }
-            sendInitialized(AudioNew, ResolutionChange, SubtitleNew);
+            trackSelector.setParameters(parameters);
+            sendInitialized(tracks);
         }
 
         private void sendBufferingUpdate() {
+            if (eventCodec != null) {
+                eventSink.success(eventCodec.encodeBufferingUpdate(0, exoPlayer.getBufferedPosition(),
+                        exoPlayer.getTotalBufferedDuration(), getBufferedBytes()));
+                return;
+            }
+            eventSink.success(EventMaps.bufferingUpdate(exoPlayer.getBufferedPosition(),
+                    exoPlayer.getTotalBufferedDuration(), getBufferedBytes()));
+        }
+
+        /** Returns the bytes held by the loader buffers, which the load control weighs against its target. */
+        @Override
+        public int getBufferedBytes() {
+            return pooledPlayer.allocator.getAllocatedBytes();
+        }
+
+        private void sendAutoFormat(int height) {
+            if (eventCodec != null) {
+                eventSink.success(eventCodec.encodeAutoFormat(height));
+                return;
+            }
+            eventSink.success(EventMaps.autoFormat(height));
+        }
+
+        private void sendCompleted() {
+            if (eventCodec != null) {
+                eventSink.success(eventCodec.encodeCompleted());
+                return;
+            }
             Map<String, Object> event = new HashMap<>();
-            event.put("event", "bufferingUpdate");
-            List<? extends Number> range = Arrays.asList(0, exoPlayer.getBufferedPosition());
-            // iOS supports a list of buffered ranges, so here is a list with a single
-            // range.
-            event.put("values", Collections.singletonList(range));
+            event.put("event", "completed");
             eventSink.success(event);
         }
 
@@ -452,13 +656,110 @@ public class PlayerPlugin implements MethodCallHandler {
             if (exoPlayer != null) {
                 exoPlayer.setPlayWhenReady(false);
                 exoPlayer.stop();
-                exoPlayer.seekTo(0);
+                // Replaces any pending scrub target, which would otherwise be applied after this seek.
+                seekTo(0, SeekParameters.EXACT);
             }
         }
 
         void setSpeed(double speed) {
-            PlaybackParameters param = new PlaybackParameters((float) speed);
-            exoPlayer.setPlaybackParameters(param);
+            this.speed = (float) speed;
+            exoPlayer.setPlaybackParameters(new PlaybackParameters(this.speed * speedAdjustment));
+        }
+
+        /** Scales the speed set with {@link #setSpeed} by {@code adjustment}, to catch up with a live stream. */
+        private void setSpeedAdjustment(float adjustment) {
+            if (adjustment == speedAdjustment) {
+                return;
+            }
+            speedAdjustment = adjustment;
+            exoPlayer.setPlaybackParameters(new PlaybackParameters(speed * speedAdjustment));
+        }
+
+        /**
+         * Sets the {@link AbrTrackSelection} strategy which adapts the quality of the media. Must be
+         * called before the media is opened.
+         */
+        void setAbrStrategy(String abrStrategy) {
+            this.abrStrategy = abrStrategy;
+        }
+
+        /**
+         * Keeps live streams at the target offset of {@code liveCatchUp}, or plays them like any other
+         * stream if it is null. Must be called before the media is opened.
+         */
+        void setLiveCatchUp(LiveCatchUpController liveCatchUp) {
+            this.liveCatchUp = liveCatchUp;
+        }
+
+        /** Returns the live latency of the playing window, or {@link C#TIME_UNSET} if it is not live. */
+        private long getLiveLatencyMs() {
+            Timeline timeline = exoPlayer.getCurrentTimeline();
+            if (timeline.isEmpty()) {
+                return C.TIME_UNSET;
+            }
+            timeline.getWindow(exoPlayer.getCurrentWindowIndex(), window);
+            return LiveCatchUpController.getLiveLatencyMs(window, exoPlayer.getCurrentPosition(),
+                    System.currentTimeMillis());
+        }
+
+        private void updateLiveCatchUp() {
+            long latencyMs = getLiveLatencyMs();
+            if (latencyMs == C.TIME_UNSET) {
+                setSpeedAdjustment(1f);
+                return;
+            }
+            // Buffering and paused players fall behind on purpose, and are caught up once playing again.
+            if (exoPlayer.getPlaybackState() == Player.STATE_READY && exoPlayer.getPlayWhenReady()) {
+                boolean shouldSeek = liveCatchUp.shouldSeek(latencyMs);
+                if (!shouldSeek) {
+                    liveCatchUpSeekIneffective = false;
+                } else if (liveCatchUpSeeked) {
+                    liveCatchUpSeekIneffective = true;
+                }
+                liveCatchUpSeeked = false;
+                // A target beyond the end of the window cannot be reached by seeking either.
+                if (shouldSeek && !liveCatchUpSeekIneffective
+                        && getTargetLivePositionMs(latencyMs) != C.TIME_UNSET) {
+                    liveCatchUpSeeked = true;
+                    seekToLiveEdge();
+                } else {
+                    setSpeedAdjustment(liveCatchUp.getSpeedAdjustment(latencyMs));
+                }
+            }
+            Map<String, Object> event = new HashMap<>();
+            event.put("event", "liveLatency");
+            event.put("latencyMs", latencyMs);
+            event.put("speedAdjustment", (double) speedAdjustment);
+            eventSink.success(event);
+        }
+
+        /**
+         * Seeks to the target offset behind the live edge, or to the default position of the stream if
+         * there is no target or the latency is not known.
+         */
+        void seekToLiveEdge() {
+            setSpeedAdjustment(1f);
+            long latencyMs = getLiveLatencyMs();
+            if (liveCatchUp == null || latencyMs == C.TIME_UNSET) {
+                // A pending scrub target would otherwise be applied after this seek.
+                pendingSeekPositionMs = C.TIME_UNSET;
+                exoPlayer.seekToDefaultPosition();
+                return;
+            }
+            long positionMs = getTargetLivePositionMs(latencyMs);
+            seekTo(positionMs != C.TIME_UNSET ? positionMs : window.getDurationMs(), SeekParameters.EXACT);
+        }
+
+        /**
+         * Returns the position at the target offset behind the live edge, given the current
+         * {@code latencyMs}, or {@link C#TIME_UNSET} if the current window ends before it.
+         */
+        private long getTargetLivePositionMs(long latencyMs) {
+            long positionMs = exoPlayer.getCurrentPosition() + latencyMs - liveCatchUp.targetOffsetMs;
+            if (window.durationUs != C.TIME_UNSET && positionMs > window.getDurationMs()) {
+                return C.TIME_UNSET;
+            }
+            return Math.max(0, positionMs);
         }
 
         @RequiresApi(api = Build.VERSION_CODES.KITKAT)
@@ -476,12 +777,59 @@ public class PlayerPlugin implements MethodCallHandler {
 
         }
 
+        /**
+         * Forces the track at {@code trackIndex} of group {@code groupIndex} for the renderer, or restores
+         * adaptive selection if {@code groupIndex} is negative.
+         *
+         * @return whether the renderer and track exist.
+         */
+        boolean selectTrack(int rendererIndex, int groupIndex, int trackIndex) {
+            MappingTrackSelector.MappedTrackInfo mappedTrackInfo = trackSelector.getCurrentMappedTrackInfo();
+            if (mappedTrackInfo == null || rendererIndex < 0 || rendererIndex >= mappedTrackInfo.getRendererCount()) {
+                return false;
+            }
+            TrackGroupArray trackGroups = mappedTrackInfo.getTrackGroups(rendererIndex);
+            DefaultTrackSelector.ParametersBuilder parameters = trackSelector.buildUponParameters()
+                    .clearSelectionOverrides(rendererIndex)
+                    .setRendererDisabled(rendererIndex, false);
+            if (groupIndex >= 0) {
+                if (groupIndex >= trackGroups.length || trackIndex < 0 || trackIndex >= trackGroups.get(groupIndex).length) {
+                    return false;
+                }
+                parameters.setSelectionOverride(rendererIndex, trackGroups,
+                        new DefaultTrackSelector.SelectionOverride(groupIndex, trackIndex));
+            }
+            trackSelector.setParameters(parameters);
+            return true;
+        }
+
         void setAudio(String code) {
             trackSelector.setParameters(trackSelector.buildUponParameters().setPreferredAudioLanguage(code));
         }
 
         void play() {
+            if (demoted) {
+                demoted = false;
+                metrics.onReprepare();
+                exoPlayer.prepare(mediaSource, /* resetPosition= */ false, /* resetState= */ false);
+            }
             exoPlayer.setPlayWhenReady(true);
+            if (isInitialized) {
+                resourceGovernor.activate(this);
+            }
+        }
+
+        @Override
+        public boolean getPlayWhenReady() {
+            return exoPlayer.getPlayWhenReady();
+        }
+
+        /** Stopping releases the renderers, with their decoders, and the buffers, but keeps the position. */
+        @Override
+        public void demote() {
+            demoted = true;
+            demotions++;
+            exoPlayer.stop();
         }
 
         void setLooping(boolean value) {
@@ -493,70 +841,189 @@ public class PlayerPlugin implements MethodCallHandler {
             exoPlayer.setVolume(bracketedValue);
         }
 
-        void seekTo(int location) {
-            exoPlayer.seekTo(location);
+        /**
+         * Seeks to {@code positionMs}, snapping to a sync sample as {@code seekParameters} allow. While an
+         * earlier seek is in flight the seek is only kept as the newest target, so that a scrubber sending
+         * dozens of seeks per second does not queue up decodes. The last target is always applied.
+         */
+        void seekTo(long positionMs, SeekParameters seekParameters) {
+            if (seekInFlight) {
+                if (pendingSeekPositionMs != C.TIME_UNSET) {
+                    seeksCoalesced++;
+                }
+                pendingSeekPositionMs = positionMs;
+                pendingSeekParameters = seekParameters;
+                return;
+            }
+            startSeek(positionMs, seekParameters);
         }
 
-        long getPosition() {
-            return exoPlayer.getCurrentPosition();
+        private void startSeek(long positionMs, SeekParameters seekParameters) {
+            // Set before seeking, in case the player acknowledges the seek right away.
+            seekInFlight = true;
+            try {
+                exoPlayer.setSeekParameters(seekParameters);
+                exoPlayer.seekTo(positionMs);
+            } catch (RuntimeException e) {
+                // No acknowledgement follows a seek which was rejected, such as one beyond the timeline.
+                seekInFlight = false;
+                throw e;
+            }
         }
 
-        @SuppressWarnings("SuspiciousNameCombination")
-        private void sendInitialized(ArrayList<String> audios, ArrayList<String> resolutions, ArrayList<String> subtitles) {
-            if (isInitialized) {
-                Map<String, Object> event = new HashMap<>();
-                event.put("event", "initialized");
-                event.put("duration", exoPlayer.getDuration());
-
-                if (exoPlayer.getVideoFormat() != null) {
-                    Format videoFormat = exoPlayer.getVideoFormat();
-                    int width = videoFormat.width;
-                    int height = videoFormat.height;
-                    int rotationDegrees = videoFormat.rotationDegrees;
-                    // Switch the width/height if video was taken in portrait mode
-                    if (rotationDegrees == 90 || rotationDegrees == 270) {
-                        width = exoPlayer.getVideoFormat().height;
-                        height = exoPlayer.getVideoFormat().width;
-                    }
-                    event.put("width", width);
-                    event.put("height", height);
-                }
-                setEvent(audios, "audios", event);
-                setEvent(resolutions, "resolutions", event);
-                setEvent(subtitles, "subtitles", event);
-                eventSink.success(event);
+        /** Returns the seek parameters of a {@code mode} argument, or null if the mode is unknown. */
+        static SeekParameters getSeekParameters(String mode) {
+            if (mode == null || mode.equals("exact")) {
+                return SeekParameters.EXACT;
+            }
+            switch (mode) {
+                case "closestSync":
+                    return SeekParameters.CLOSEST_SYNC;
+                case "previousSync":
+                    return SeekParameters.PREVIOUS_SYNC;
+                case "nextSync":
+                    return SeekParameters.NEXT_SYNC;
+                default:
+                    return null;
+            }
+        }
 
-                event.put("event", "autoFormat");
-                event.put("autoFormat", exoPlayer.getVideoFormat().height+"p");
-                eventSink.success(event);
+        /**
+         * Pushes a position snapshot on the event channel every {@code intervalMs} while playing,
+         * or stops doing so if {@code intervalMs} is zero.
+         */
+        void setTickInterval(long intervalMs) {
+            tickIntervalMs = intervalMs;
+            tickHandler.removeCallbacks(tick);
+            if (intervalMs > 0 && exoPlayer.isPlaying()) {
+                tickHandler.post(tick);
+            }
+        }
 
+        boolean isTicking() {
+            return tickIntervalMs > 0;
+        }
 
+        /**
+         * Sends ticks, buffering updates, format changes, completion and item transitions as packed
+         * binary events instead of maps. See {@link EventCodec} for the layouts.
+         */
+        void setBinaryEvents(boolean enabled) {
+            eventCodec = enabled ? new EventCodec() : null;
+        }
+
+        private void sendTick() {
+            Format videoFormat = exoPlayer.getVideoFormat();
+            int bitrate = videoFormat != null ? videoFormat.bitrate : Format.NO_VALUE;
+            long liveLatencyMs = getLiveLatencyMs();
+            if (liveLatencyMs == C.TIME_UNSET) {
+                liveLatencyMs = -1;
+            }
+            if (eventCodec != null) {
+                eventSink.success(eventCodec.encodeTick(exoPlayer.getCurrentPosition(),
+                        exoPlayer.getBufferedPosition(), bitrate, exoPlayer.isPlaying(),
+                        exoPlayer.getTotalBufferedDuration(), getBufferedBytes(), liveLatencyMs));
+                return;
             }
+            eventSink.success(EventMaps.tick(exoPlayer.getCurrentPosition(), exoPlayer.getBufferedPosition(), bitrate,
+                    exoPlayer.isPlaying(), exoPlayer.getTotalBufferedDuration(), getBufferedBytes(), liveLatencyMs));
         }
 
-        private void setEvent(ArrayList<String> value, String type, Map<String, Object> event) {
-            JSONArray array = new JSONArray();
-            if (value.size() > 0) {
-                for (int i = 0; i < value.size(); i++) {
-                    array.put(value.get(i));
-                }
-            } else {
-                array.put("NO_VALUE");
+        /**
+         * Pushes a {@code stats} event with {@link #getStats()} every {@code intervalMs}, or stops doing
+         * so if {@code intervalMs} is zero.
+         */
+        void setStatsInterval(long intervalMs) {
+            statsIntervalMs = intervalMs;
+            tickHandler.removeCallbacks(statsRunnable);
+            if (intervalMs > 0) {
+                tickHandler.postDelayed(statsRunnable, intervalMs);
             }
-            event.put(type, array.toString());
         }
 
-        void dispose() {
+        Map<String, Object> getStats() {
+            Map<String, Object> stats = metrics.toMap(SystemClock.elapsedRealtime());
+            stats.put("eventsDropped", eventSink.getDroppedCount());
+            stats.put("eventsCoalesced", eventSink.getCoalescedCount());
+            stats.put("seeksCoalesced", seeksCoalesced);
+            stats.put("demotions", demotions);
+            return stats;
+        }
+
+        long getPosition() {
+            return exoPlayer.getCurrentPosition();
+        }
+
+        /**
+         * Sends the initialized event last sent for the media, if its manifest is still cached, so that
+         * the duration and tracks are known before the first segment is loaded. The event is sent again
+         * once the player is ready, with what it actually found.
+         */
+        private void sendCachedInitialized() {
+            if (initializedKey == null) {
+                return;
+            }
+            Map<String, Object> event = ManifestCache.getInstance(context).getInitializedEvent(initializedKey);
+            if (event != null) {
+                eventSink.success(event);
+            }
+        }
+
+        private void sendInitialized(TrackDescriptors tracks) {
             if (isInitialized) {
-                exoPlayer.stop();
+                Format videoFormat = exoPlayer.getVideoFormat();
+                Map<String, Object> event = EventMaps.initialized(exoPlayer.getDuration(), videoFormat, tracks);
+                if (initializedKey != null) {
+                    ManifestCache.getInstance(context).putInitializedEvent(initializedKey, event);
+                }
+                eventSink.success(event);
+                Tracer.record(textureEntry.id(), "createToInitialized", createTraceStartNs);
+                createTraceStartNs = 0;
+                if (videoFormat != null) {
+                    sendAutoFormat(videoFormat.height);
+                }
             }
-            textureEntry.release();
-            eventChannel.setStreamHandler(null);
+        }
+
+        /**
+         * Reports that opening the media failed with {@code e}, and returns the player to the pool, after
+         * which {@link #isCreated()} is false.
+         */
+        void failOpen(RuntimeException e) {
+            releasePlayer();
+            eventSink.error("open_failed", e.toString(), null);
+        }
+
+        void dispose() {
+            releasePlayer();
             if (surface != null) {
                 surface.release();
             }
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    textureEntry.release();
+                    eventChannel.setStreamHandler(null);
+                }
+            });
+        }
+
+        private void releasePlayer() {
+            tickHandler.removeCallbacks(tick);
+            tickHandler.removeCallbacks(statsRunnable);
+            tickHandler.removeCallbacks(liveCatchUpRunnable);
             if (exoPlayer != null) {
-                exoPlayer.release();
+                exoPlayer.removeAnalyticsListener(metrics);
+                if (eventListener != null) {
+                    exoPlayer.removeListener(eventListener);
+                }
+                if (videoListener != null) {
+                    exoPlayer.removeVideoListener(videoListener);
+                }
+                resourceGovernor.remove(this);
+                // Resets the player and detaches it from the surface before the surface is released.
+                playerPool.release(pooledPlayer);
+                exoPlayer = null;
             }
         }
     }
@@ -565,6 +1032,8 @@ public class PlayerPlugin implements MethodCallHandler {
         final PlayerPlugin plugin = new PlayerPlugin(registrar);
         final MethodChannel channel = new MethodChannel(registrar.messenger(), "flutter.io/videoPlayer");
         channel.setMethodCallHandler(plugin);
+        new EventChannel(registrar.messenger(), "flutter.io/videoPlayer/downloadEvents")
+                .setStreamHandler(plugin.downloads.getStreamHandler());
         registrar.addViewDestroyListener(new PluginRegistry.ViewDestroyListener() {
             @Override
             public boolean onViewDestroy(FlutterNativeView view) {
@@ -574,18 +1043,87 @@ public class PlayerPlugin implements MethodCallHandler {
         });
     }
 
+    /**
+     * Sets the provider asked for extra headers before every HTTP request of the plugin, or null to
+     * remove it. Applies to players which already exist.
+     */
+    public static void setHttpHeaderProvider(HttpHeaderProvider provider) {
+        HttpStack.setHeaderProvider(provider);
+    }
+
     private PlayerPlugin(Registrar registrar) {
         this.registrar = registrar;
         this.videoPlayers = new LongSparseArray<>();
+        this.playerPool = new PlayerPool(registrar.context());
+        // Created eagerly so that downloads interrupted by the death of the process resume.
+        this.downloads = OfflineDownloads.getInstance(registrar.context());
+        this.drmSessionCache = new DrmSessionCache(registrar.context());
+        this.preloader = new MediaPreloader(SharedBandwidthMeter.getInstance(registrar.context()).getBandwidthMeter());
+        registrar.context().registerComponentCallbacks(componentCallbacks);
     }
 
     private final LongSparseArray<VideoPlayer> videoPlayers;
 
+    private final PlayerPool playerPool;
+
+    private final OfflineDownloads downloads;
+
+    private final DrmSessionCache drmSessionCache;
+
+    private final MediaPreloader preloader;
+
     private final Registrar registrar;
 
+    private final PlaybackThread playbackThread = PlaybackThread.getInstance();
+
+    private final ResourceGovernor resourceGovernor = new ResourceGovernor();
+
+    private final ComponentCallbacks2 componentCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            trimMemory(level);
+        }
+
+        @Override
+        public void onLowMemory() {
+            trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration configuration) {
+        }
+    };
+
+    /**
+     * Under memory pressure, releases the idle players of the pool and demotes the players which are
+     * not playing, which frees their decoders and buffers, then empties the segment pool. Manifests
+     * are dropped from memory too.
+     */
+    private void trimMemory(final int level) {
+        if (level < ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            return;
+        }
+        ManifestCache.getInstance(registrar.context()).trimMemory();
+        playbackThread.post(new Runnable() {
+            @Override
+            public void run() {
+                playerPool.clear();
+                resourceGovernor.trimMemory(level);
+                // After the demotions, so that their released segments are trimmed too.
+                SegmentPool.getInstance().trim();
+            }
+        });
+    }
+
     private void disposeAllPlayers() {
         for (int i = 0; i < videoPlayers.size(); i++) {
-            videoPlayers.valueAt(i).dispose();
+            final VideoPlayer player = videoPlayers.valueAt(i);
+            playbackThread.post(new Runnable() {
+                @Override
+                public void run() {
+                    player.dispose();
+                }
+            });
         }
         videoPlayers.clear();
     }
@@ -598,11 +1136,32 @@ public class PlayerPlugin implements MethodCallHandler {
         // be replaced with just asserting that videoPlayers.isEmpty().
         // https://github.com/flutter/flutter/issues/20989 tracks this.
         disposeAllPlayers();
+        registrar.context().unregisterComponentCallbacks(componentCallbacks);
+        playbackThread.post(new Runnable() {
+            @Override
+            public void run() {
+                playerPool.clear();
+                preloader.cancelAll();
+            }
+        });
     }
 
     @RequiresApi(api = Build.VERSION_CODES.KITKAT)
     @Override
     public void onMethodCall(MethodCall call, Result result) {
+        // Covers the dispatch on the main thread; work posted to the playback thread is traced there.
+        long traceStartNs = Tracer.begin(call.method);
+        try {
+            dispatchMethodCall(call, result);
+        } finally {
+            Object textureId = traceStartNs != 0 && call.arguments instanceof Map ? call.argument("textureId") : null;
+            Tracer.end(textureId instanceof Number ? ((Number) textureId).longValue() : Tracer.NO_TEXTURE_ID,
+                    call.method, traceStartNs);
+        }
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.KITKAT)
+    private void dispatchMethodCall(MethodCall call, Result result) {
         TextureRegistry textures = registrar.textures();
         if (textures == null) {
             result.error("no_activity", "video_player plugin requires a foreground activity", null);
@@ -611,13 +1170,209 @@ public class PlayerPlugin implements MethodCallHandler {
         switch (call.method) {
             case "init":
                 disposeAllPlayers();
+                List<String> signedQueryParameters = call.argument("signedQueryParameters");
+                SignedUrlCacheKeyFactory.setExtraSignedQueryParameters(signedQueryParameters);
+                // The budget of an open cache cannot change, which is reported once the rest is configured.
+                boolean cacheMaxBytesApplied = call.argument("cacheMaxBytes") == null
+                        || MediaCache.setMaxBytes(((Number) call.argument("cacheMaxBytes")).longValue());
+                if (call.argument("allocatorMaxBytes") != null) {
+                    SegmentPool.getInstance().setMaxBytes(((Number) call.argument("allocatorMaxBytes")).longValue());
+                }
+                final int playerPoolSize = call.argument("playerPoolSize") != null
+                        ? ((Number) call.argument("playerPoolSize")).intValue() : PlayerPool.DEFAULT_MAX_IDLE_PLAYERS;
+                final long playerPoolIdleTimeoutMs = call.argument("playerPoolIdleTimeoutMs") != null
+                        ? ((Number) call.argument("playerPoolIdleTimeoutMs")).longValue()
+                        : PlayerPool.DEFAULT_IDLE_TIMEOUT_MS;
+                final int maxActivePlayers = call.argument("maxActivePlayers") != null
+                        ? ((Number) call.argument("maxActivePlayers")).intValue()
+                        : ResourceGovernor.DEFAULT_MAX_ACTIVE_PLAYERS;
+                final long maxBufferBytes = call.argument("maxBufferBytes") != null
+                        ? ((Number) call.argument("maxBufferBytes")).longValue()
+                        : ResourceGovernor.DEFAULT_MAX_BUFFER_BYTES;
+                playbackThread.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        playerPool.configure(playerPoolSize, playerPoolIdleTimeoutMs);
+                        resourceGovernor.configure(maxActivePlayers, maxBufferBytes);
+                    }
+                });
+                ManifestCache.getInstance(registrar.context()).configure(
+                        call.argument("manifestCacheSize") != null
+                                ? ((Number) call.argument("manifestCacheSize")).intValue()
+                                : ManifestCache.DEFAULT_MAX_ENTRIES,
+                        call.argument("manifestCacheVodTtlMs") != null
+                                ? ((Number) call.argument("manifestCacheVodTtlMs")).longValue()
+                                : ManifestCache.DEFAULT_VOD_TTL_MS,
+                        Boolean.TRUE.equals(call.argument("manifestCacheOnDisk")));
+                if (call.argument("maxConcurrentDownloads") != null) {
+                    downloads.setMaxConcurrentTitles(((Number) call.argument("maxConcurrentDownloads")).intValue());
+                }
+                int httpConnectTimeoutMs = call.argument("httpConnectTimeoutMs") != null
+                        ? ((Number) call.argument("httpConnectTimeoutMs")).intValue()
+                        : DefaultHttpDataSource.DEFAULT_CONNECT_TIMEOUT_MILLIS;
+                int httpReadTimeoutMs = call.argument("httpReadTimeoutMs") != null
+                        ? ((Number) call.argument("httpReadTimeoutMs")).intValue()
+                        : DefaultHttpDataSource.DEFAULT_READ_TIMEOUT_MILLIS;
+                HttpStack.getInstance(registrar.context()).configure(httpConnectTimeoutMs, httpReadTimeoutMs,
+                        Boolean.TRUE.equals(call.argument("useOkHttp")));
+                if (!cacheMaxBytesApplied) {
+                    result.error("cache_already_open", "The media cache is already open with a budget of "
+                            + MediaCache.getInstance(registrar.context()).getStats().get("maxBytes")
+                            + " bytes, a new one takes effect after the app restarts", null);
+                    break;
+                }
+                result.success(null);
+                break;
+            case "setHttpHeaders": {
+                Map<String, String> headers = call.argument("headers");
+                HttpStack.getInstance(registrar.context()).setHeaders(
+                        headers != null ? headers : new HashMap<String, String>());
+                result.success(null);
+                break;
+            }
+            case "download": {
+                String uri = call.argument("uri");
+                if (uri == null) {
+                    result.error("invalid_argument", "download requires a uri", null);
+                    break;
+                }
+                downloads.download(uri, Uri.parse(uri), (String) call.argument("extension"),
+                        (String) call.argument("title"), result);
+                break;
+            }
+            case "pauseDownload":
+                downloads.pause((String) call.argument("id"));
+                result.success(null);
+                break;
+            case "resumeDownload":
+                downloads.resume((String) call.argument("id"));
+                result.success(null);
+                break;
+            case "removeDownload":
+                downloads.remove((String) call.argument("id"));
+                result.success(null);
+                break;
+            case "listDownloads":
+                try {
+                    result.success(downloads.list());
+                } catch (IOException e) {
+                    result.error("download_index", e.getMessage(), null);
+                }
+                break;
+            case "preload": {
+                final String uriString = call.argument("uri");
+                final String extension = call.argument("extension");
+                final long durationMs = call.argument("durationMs") != null
+                        ? ((Number) call.argument("durationMs")).longValue() : DEFAULT_PRELOAD_DURATION_MS;
+                final int priority = call.argument("priority") != null
+                        ? ((Number) call.argument("priority")).intValue() : 0;
+                final Result reply = new MainThreadResult(result);
+                final Context context = registrar.context();
+                playbackThread.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        Uri uri = Uri.parse(uriString);
+                        // Local and downloaded media start without the network anyway.
+                        if (VideoPlayer.isFileOrAsset(uri) || downloads.buildMediaSource(uriString) != null) {
+                            reply.success(true);
+                            return;
+                        }
+                        // Preloading through the manifest cache also saves the player the manifest load.
+                        DataSource.Factory manifestDataSourceFactory = ManifestCache.getInstance(context)
+                                .buildDataSourceFactory(HttpStack.getInstance(context));
+                        DataSource.Factory mediaDataSourceFactory = MediaCache.getInstance(context)
+                                .buildCacheDataSourceFactory(HttpStack.getInstance(context));
+                        MediaSource mediaSource;
+                        try {
+                            mediaSource = VideoPlayer.buildMediaSource(uri, extension, manifestDataSourceFactory,
+                                    mediaDataSourceFactory, context, /* drmSessionManager= */ null,
+                                    /* liveCatchUp= */ null);
+                        } catch (IllegalStateException e) {
+                            reply.error("preload_failed", e.getMessage(), null);
+                            return;
+                        }
+                        preloader.preload(uriString, mediaSource, durationMs, priority, reply);
+                    }
+                });
+                break;
+            }
+            case "cancelPreload": {
+                final String uriString = call.argument("uri");
+                playbackThread.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        preloader.cancel(uriString);
+                    }
+                });
+                result.success(null);
+                break;
+            }
+            case "cacheStats": {
+                Map<String, Object> stats = MediaCache.getInstance(registrar.context()).getStats();
+                stats.putAll(ManifestCache.getInstance(registrar.context()).getStats());
+                result.success(stats);
+                break;
+            }
+            case "setTracing":
+                Tracer.setEnabled(Boolean.TRUE.equals(call.argument("enabled")));
+                result.success(null);
+                break;
+            case "traceDump": {
+                Number textureId = call.argument("textureId");
+                result.success(Tracer.dump(textureId != null ? Long.valueOf(textureId.longValue()) : null));
+                break;
+            }
+            case "allocatorStats":
+                result.success(SegmentPool.getInstance().getStats());
+                break;
+            case "statsRollup": {
+                final List<VideoPlayer> players = new ArrayList<>(videoPlayers.size());
+                for (int i = 0; i < videoPlayers.size(); i++) {
+                    players.add(videoPlayers.valueAt(i));
+                }
+                final Result reply = new MainThreadResult(result);
+                playbackThread.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        reply.success(buildStatsRollup(players));
+                    }
+                });
+                break;
+            }
+            case "bandwidthEstimate":
+                result.success(SharedBandwidthMeter.getInstance(registrar.context()).getEstimate());
                 break;
             case "create": {
-                TextureRegistry.SurfaceTextureEntry handle = textures.createSurfaceTexture();
+                final TextureRegistry.SurfaceTextureEntry handle = textures.createSurfaceTexture();
                 EventChannel eventChannel = new EventChannel(registrar.messenger(),
                         "flutter.io/videoPlayer/videoEvents" + handle.id());
 
-                VideoPlayer player;
+                LoadControlProfile loadControlProfile;
+                try {
+                    loadControlProfile = LoadControlProfile.fromArgument(call.argument("loadControl"));
+                } catch (IllegalArgumentException e) {
+                    handle.release();
+                    result.error("invalid_load_control", e.getMessage(), null);
+                    return;
+                }
+                final LiveCatchUpController liveCatchUp;
+                try {
+                    liveCatchUp = LiveCatchUpController.fromArgument(call.argument("live"));
+                } catch (IllegalArgumentException e) {
+                    handle.release();
+                    result.error("invalid_live_configuration", e.getMessage(), null);
+                    return;
+                }
+                final String abrStrategy;
+                try {
+                    abrStrategy = AbrTrackSelection.parseStrategy(call.argument("abrStrategy"));
+                } catch (IllegalArgumentException e) {
+                    handle.release();
+                    result.error("invalid_abr_strategy", e.getMessage(), null);
+                    return;
+                }
+                final String assetUri;
+                final MediaContent mediaContent;
                 if (call.argument("asset") != null) {
                     String assetLookupKey;
                     if (call.argument("package") != null) {
@@ -626,42 +1381,251 @@ public class PlayerPlugin implements MethodCallHandler {
                     } else {
                         assetLookupKey = registrar.lookupKeyForAsset(call.argument("asset").toString());
                     }
-                    player = new VideoPlayer(registrar.context(), eventChannel, handle, "asset:///" + assetLookupKey, result);
-                    videoPlayers.put(handle.id(), player);
+                    assetUri = "asset:///" + assetLookupKey;
+                    mediaContent = null;
                 } else {
+                    assetUri = null;
                     if (call.argument("sourcetype") != null) {
 
-                        MediaContent mediaContent = new MediaContent(call.argument("name").toString(),
+                        mediaContent = new MediaContent(call.argument("name").toString(),
                                 call.argument("uri").toString(), call.argument("extension").toString(),
                                 call.argument("drm_scheme").toString(), call.argument("drm_license_url").toString(),
-                                call.argument("ad_tag_uri").toString(), null, call.argument("spherical_stereo_mode").toString(),
+                                call.argument("ad_tag_uri").toString(), (List<String>) call.argument("playlist"),
+                                call.argument("spherical_stereo_mode").toString(),
                                 (List<String>) call.argument("subtitlesLink"), call.argument("localMediaDRMCallbackKey").toString());
-                        player = new VideoPlayer(registrar.context(), eventChannel, handle, mediaContent, result);
                     } else {
-                        player = new VideoPlayer(registrar.context(), eventChannel, handle,
-                                new MediaContent(null, call.argument("uri").toString(), null, null, null, null, null, null,
-                                        (List<String>) call.argument("subtitlesLink"), ""),
-                                result);
+                        mediaContent = new MediaContent(null, call.argument("uri").toString(), null, null, null, null, null, null,
+                                (List<String>) call.argument("subtitlesLink"), "");
+                    }
+                }
+                final boolean binaryEvents = Boolean.TRUE.equals(call.argument("binaryEvents"));
+                final Number statsIntervalMs = call.argument("statsIntervalMs");
+                final Number tickIntervalMs = call.argument("tickIntervalMs");
+                final VideoPlayer player = new VideoPlayer(registrar.context(), playerPool, resourceGovernor,
+                        loadControlProfile, drmSessionCache, eventChannel, handle);
+                videoPlayers.put(handle.id(), player);
+                // The player is built on the playback thread, and reports that it is ready, or that it failed,
+                // on its event channel. Calls made in the meantime are queued behind this one.
+                playbackThread.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        player.setBinaryEvents(binaryEvents);
+                        player.setLiveCatchUp(liveCatchUp);
+                        player.setAbrStrategy(abrStrategy);
+                        long traceStartNs = Tracer.begin("open");
+                        try {
+                            if (assetUri != null) {
+                                player.openAsset(assetUri);
+                            } else {
+                                player.openMediaContent(mediaContent);
+                            }
+                            if (!player.isCreated()) {
+                                return;
+                            }
+                            if (statsIntervalMs != null) {
+                                player.setStatsInterval(statsIntervalMs.longValue());
+                            }
+                            if (tickIntervalMs != null) {
+                                player.setTickInterval(tickIntervalMs.longValue());
+                            }
+                        } catch (RuntimeException e) {
+                            // Such as an unsupported media type, which must not take down the playback thread.
+                            player.failOpen(e);
+                        } finally {
+                            Tracer.end(handle.id(), "open", traceStartNs);
+                        }
                     }
-                    videoPlayers.put(handle.id(), player);
+                });
+                Map<String, Object> reply = new HashMap<>();
+                reply.put("textureId", handle.id());
+                result.success(reply);
+                break;
+            }
+            case "batch": {
+                final List<Map<String, Object>> operations = call.argument("operations");
+                if (operations == null) {
+                    result.error("invalid_argument", "batch requires a list of operations", null);
+                    break;
                 }
+                final List<VideoPlayer> players = new ArrayList<>(operations.size());
+                for (Map<String, Object> operation : operations) {
+                    players.add(lookUpPlayer(operation.get("textureId"), (String) operation.get("method")));
+                }
+                final Result reply = new MainThreadResult(result);
+                playbackThread.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        List<Map<String, Object>> replies = new ArrayList<>(operations.size());
+                        for (int i = 0; i < operations.size(); i++) {
+                            replies.add(applyOperation(operations.get(i), players.get(i)));
+                        }
+                        reply.success(replies);
+                    }
+                });
                 break;
             }
             default: {
-                long textureId = ((Number) call.argument("textureId")).longValue();
-                VideoPlayer player = videoPlayers.get(textureId);
+                final long textureId = ((Number) call.argument("textureId")).longValue();
+                final VideoPlayer player = lookUpPlayer(textureId, call.method);
                 if (player == null) {
                     result.error("Unknown textureId", "No video player associated with texture id " + textureId, null);
                     return;
                 }
-                onMethodCall(call, result, textureId, player);
+                final MethodCall playerCall = call;
+                final Result reply = new MainThreadResult(result);
+                playbackThread.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        long traceStartNs = Tracer.begin(playerCall.method);
+                        try {
+                            onMethodCall(playerCall, reply, textureId, player);
+                        } catch (RuntimeException e) {
+                            // Missing or mistyped arguments, or an index out of range of the playlist.
+                            reply.error("invalid_operation", e.toString(), null);
+                        } finally {
+                            Tracer.end(textureId, playerCall.method, traceStartNs);
+                        }
+                    }
+                });
                 break;
             }
         }
     }
 
+    /** Collects the reply to one operation of a batch. Player methods reply before they return. */
+    private static final class BatchedResult implements Result {
+        private final Map<String, Object> reply = new HashMap<>();
+
+        @Override
+        public void success(Object value) {
+            reply.put("value", value);
+        }
+
+        @Override
+        public void error(String errorCode, String errorMessage, Object errorDetails) {
+            reply.put("error", errorCode);
+            reply.put("message", errorMessage);
+            reply.put("details", errorDetails);
+        }
+
+        @Override
+        public void notImplemented() {
+            error("notImplemented", null, null);
+        }
+    }
+
+    /** Replies on the main thread to a method call handled on the {@link PlaybackThread}. */
+    private static final class MainThreadResult implements Result {
+        private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+        private final Result result;
+
+        MainThreadResult(Result result) {
+            this.result = result;
+        }
+
+        @Override
+        public void success(final Object value) {
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    result.success(value);
+                }
+            });
+        }
+
+        @Override
+        public void error(final String errorCode, final String errorMessage, final Object errorDetails) {
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    result.error(errorCode, errorMessage, errorDetails);
+                }
+            });
+        }
+
+        @Override
+        public void notImplemented() {
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    result.notImplemented();
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns the player of {@code textureId}, or null if there is none. A player which is about to be
+     * disposed is removed right away, so that no later call reaches it.
+     */
+    private VideoPlayer lookUpPlayer(Object textureId, String method) {
+        if (!(textureId instanceof Number)) {
+            return null;
+        }
+        long id = ((Number) textureId).longValue();
+        VideoPlayer player = videoPlayers.get(id);
+        if ("dispose".equals(method)) {
+            videoPlayers.remove(id);
+        }
+        return player;
+    }
+
+    private static Map<String, Object> buildStatsRollup(List<VideoPlayer> players) {
+        long nowRealtimeMs = SystemClock.elapsedRealtime();
+        QoeMetrics rollup = QoeMetrics.newRollup();
+        long eventsDropped = 0;
+        long eventsCoalesced = 0;
+        long seeksCoalesced = 0;
+        long demotions = 0;
+        for (VideoPlayer player : players) {
+            if (!player.isCreated()) {
+                continue;
+            }
+            rollup.addAll(player.metrics, nowRealtimeMs);
+            eventsDropped += player.eventSink.getDroppedCount();
+            eventsCoalesced += player.eventSink.getCoalescedCount();
+            seeksCoalesced += player.seeksCoalesced;
+            demotions += player.demotions;
+        }
+        Map<String, Object> stats = rollup.toMap(nowRealtimeMs);
+        stats.put("eventsDropped", eventsDropped);
+        stats.put("eventsCoalesced", eventsCoalesced);
+        stats.put("seeksCoalesced", seeksCoalesced);
+        stats.put("demotions", demotions);
+        return stats;
+    }
+
+    /**
+     * Applies one operation of a batch to {@code player}: a map with the name of a player method under
+     * {@code method} and its arguments. Returns the reply of the method under {@code value}, or its
+     * error under {@code error}, so that a failing operation does not stop the ones after it.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.KITKAT)
+    private Map<String, Object> applyOperation(Map<String, Object> operation, VideoPlayer player) {
+        BatchedResult result = new BatchedResult();
+        Object textureId = operation.get("textureId");
+        if (player == null) {
+            result.error("Unknown textureId", "No video player associated with texture id " + textureId, null);
+            return result.reply;
+        }
+        try {
+            onMethodCall(new MethodCall((String) operation.get("method"), operation), result,
+                    ((Number) textureId).longValue(), player);
+        } catch (RuntimeException e) {
+            // Missing or mistyped arguments.
+            result.error("invalid_operation", e.toString(), null);
+        }
+        return result.reply;
+    }
+
+    /** Handles a call to {@code player} on the {@link PlaybackThread}. */
     @RequiresApi(api = Build.VERSION_CODES.KITKAT)
     private void onMethodCall(MethodCall call, Result result, long textureId, VideoPlayer player) {
+        if (!player.isCreated() && !call.method.equals("dispose")) {
+            result.error("not_created", "Video player " + textureId + " failed to open its media", null);
+            return;
+        }
         switch (call.method) {
             case "setLooping":
                 player.setLooping((boolean) call.argument("looping"));
@@ -683,18 +1647,58 @@ public class PlayerPlugin implements MethodCallHandler {
                 player.stop();
                 result.success(null);
                 break;
-            case "seekTo":
-                int location = ((Number) call.argument("location")).intValue();
-                player.seekTo(location);
+            case "seekTo": {
+                SeekParameters seekParameters = VideoPlayer.getSeekParameters((String) call.argument("mode"));
+                if (seekParameters == null) {
+                    result.error("invalid_seek_mode", "Unknown seek mode " + call.argument("mode"), null);
+                    break;
+                }
+                player.seekTo(((Number) call.argument("location")).longValue(), seekParameters);
+                result.success(null);
+                break;
+            }
+            case "seekToLiveEdge":
+                player.seekToLiveEdge();
                 result.success(null);
                 break;
             case "position":
                 result.success(player.getPosition());
-                player.sendBufferingUpdate();
+                if (!player.isTicking()) {
+                    player.sendBufferingUpdate();
+                }
+                break;
+            case "playlistAdd":
+            case "playlistRemove":
+            case "playlistMove":
+                if (!player.hasPlaylist()) {
+                    result.error("no_playlist", "Video player " + textureId + " was not created from a MediaContent", null);
+                    break;
+                }
+                if (call.method.equals("playlistAdd")) {
+                    Object index = call.argument("index");
+                    player.addPlaylistItem(index != null ? ((Number) index).intValue() : -1,
+                            call.argument("uri").toString(), (String) call.argument("extension"));
+                } else if (call.method.equals("playlistRemove")) {
+                    player.removePlaylistItem(((Number) call.argument("index")).intValue());
+                } else {
+                    player.movePlaylistItem(((Number) call.argument("from")).intValue(),
+                            ((Number) call.argument("to")).intValue());
+                }
+                result.success(null);
+                break;
+            case "stats":
+                result.success(player.getStats());
+                break;
+            case "setStatsInterval":
+                player.setStatsInterval(((Number) call.argument("intervalMs")).longValue());
+                result.success(null);
+                break;
+            case "setTickInterval":
+                player.setTickInterval(((Number) call.argument("intervalMs")).longValue());
+                result.success(null);
                 break;
             case "dispose":
                 player.dispose();
-                videoPlayers.remove(textureId);
                 result.success(null);
                 break;
             case "speed":
@@ -705,6 +1709,15 @@ public class PlayerPlugin implements MethodCallHandler {
                 player.setResolution((int) call.argument("width"), (int) call.argument("height") , (int) call.argument("bitrate"));
                 result.success(null);
                 break;
+            case "selectTrack":
+                if (player.selectTrack(((Number) call.argument("rendererIndex")).intValue(),
+                        ((Number) call.argument("groupIndex")).intValue(),
+                        ((Number) call.argument("trackIndex")).intValue())) {
+                    result.success(null);
+                } else {
+                    result.error("invalid_track", "No such track for video player " + textureId, null);
+                }
+                break;
             case "audio":
                 player.setAudio(call.argument("code").toString());
                 result.success(null);
@@ -715,28 +1728,6 @@ public class PlayerPlugin implements MethodCallHandler {
         }
     }
 
-    private static DefaultDrmSessionManager<ExoMediaCrypto> buildDrmSessionManagerV18(UUID uuid, String licenseUrl,
-                                                                                      String[] keyRequestPropertiesArray, boolean multiSession, String localMediaDRMCallbackKey)
-            throws UnsupportedDrmException {
-
-//        HttpDataSource.Factory licenseDataSourceFactory = new DefaultHttpDataSourceFactory("ExoPlayerDemo");
-
-//        String abc = "{\"keys\": [{\"k\": \"5icM5T6kHUF89/UzABS8DQ\", \"kty\": \"oct\", \"kid\": \"S9mKJrqs048ibIfP4oMM5Q\" }], \"type\": \"temporary\"}";
-//        LocalMediaDrmCallback drmCallback1 = new LocalMediaDrmCallback(abc.getBytes());
-
-//        String key = localMediaDRMCallbackKey;
-
-        LocalMediaDrmCallback drmCallback = new LocalMediaDrmCallback(localMediaDRMCallbackKey.getBytes());
-
-        releaseMediaDrm();
-        mediaDrm = FrameworkMediaDrm.newInstance(C.CLEARKEY_UUID);
-        return new DefaultDrmSessionManager.Builder()
-                .setUuidAndExoMediaDrmProvider(C.CLEARKEY_UUID, FrameworkMediaDrm.DEFAULT_PROVIDER)
-                .setMultiSession(true)
-                .build(drmCallback);
-//        return new DefaultDrmSessionManager<>(C.CLEARKEY_UUID, mediaDrm, drmCallback, null, true);
-    }
-
     // public String getEncodeValue(){
     //
     // String hexadecimal = "6a95b4dd5419f2ffb9f655309c931cb0";
@@ -753,11 +1744,4 @@ public class PlayerPlugin implements MethodCallHandler {
     // System.out.println("base64: " + s);
     // System.out.println("encoded: " + Base64.isBase64(s));
     // }
-
-    private static void releaseMediaDrm() {
-        if (mediaDrm != null) {
-            mediaDrm.release();
-            mediaDrm = null;
-        }
-    }
 }
@@ -0,0 +1,176 @@
+package com.kushal.player_plugin;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.SystemClock;
+
+import com.google.android.exoplayer2.DefaultRenderersFactory;
+import com.google.android.exoplayer2.PlaybackParameters;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.SeekParameters;
+import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.google.android.exoplayer2.audio.AudioAttributes;
+import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
+import com.google.android.exoplayer2.upstream.DefaultBandwidthMeter;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * A pool of pre-built, idle {@link SimpleExoPlayer} instances.
+ *
+ * <p>Building a player and its renderers, track selector and load control is the most expensive
+ * part of {@code create}, so disposed players are reset and kept for the next {@code create}
+ * instead of being released. Players which stay idle for longer than the idle timeout are released.
+ * A player is only reused for a {@code create} asking for the same {@link LoadControlProfile}.
+ *
+ * <p>Must only be used on the {@link PlaybackThread}, which is also the application thread of the
+ * players.
+ */
+final class PlayerPool {
+    static final int DEFAULT_MAX_IDLE_PLAYERS = 2;
+    static final long DEFAULT_IDLE_TIMEOUT_MS = 60_000;
+
+    static final class PooledPlayer {
+        final SimpleExoPlayer exoPlayer;
+        final DefaultTrackSelector trackSelector;
+        final AbrTrackSelection.Factory abrFactory;
+        final DefaultBandwidthMeter bandwidthMeter;
+        final LoadControlProfile loadControlProfile;
+        final PlayerAllocator allocator;
+        private long idleSinceMs;
+
+        private PooledPlayer(SimpleExoPlayer exoPlayer, DefaultTrackSelector trackSelector,
+                             AbrTrackSelection.Factory abrFactory, DefaultBandwidthMeter bandwidthMeter,
+                             LoadControlProfile loadControlProfile, PlayerAllocator allocator) {
+            this.exoPlayer = exoPlayer;
+            this.trackSelector = trackSelector;
+            this.abrFactory = abrFactory;
+            this.bandwidthMeter = bandwidthMeter;
+            this.loadControlProfile = loadControlProfile;
+            this.allocator = allocator;
+        }
+    }
+
+    private final Context context;
+    private final Handler handler = PlaybackThread.getInstance().getHandler();
+    private final ArrayDeque<PooledPlayer> idlePlayers = new ArrayDeque<>();
+    private final DefaultTrackSelector.Parameters defaultTrackSelectorParameters;
+    private int maxIdlePlayers = DEFAULT_MAX_IDLE_PLAYERS;
+    private long idleTimeoutMs = DEFAULT_IDLE_TIMEOUT_MS;
+
+    private final Runnable trimRunnable = new Runnable() {
+        @Override
+        public void run() {
+            trim();
+        }
+    };
+
+    PlayerPool(Context context) {
+        this.context = context;
+        defaultTrackSelectorParameters = new DefaultTrackSelector.ParametersBuilder(context).build();
+    }
+
+    /**
+     * Sets the pool size and idle timeout, and builds players with the default profile until the pool
+     * is full.
+     */
+    void configure(int maxIdlePlayers, long idleTimeoutMs) {
+        this.maxIdlePlayers = maxIdlePlayers;
+        this.idleTimeoutMs = idleTimeoutMs;
+        while (idlePlayers.size() > maxIdlePlayers) {
+            idlePlayers.removeFirst().exoPlayer.release();
+        }
+        while (idlePlayers.size() < maxIdlePlayers) {
+            PooledPlayer player = build(LoadControlProfile.DEFAULT);
+            player.idleSinceMs = SystemClock.elapsedRealtime();
+            idlePlayers.addLast(player);
+        }
+        scheduleTrim();
+    }
+
+    /** Returns an idle player with {@code loadControlProfile}, or a newly built one if there is none. */
+    PooledPlayer acquire(LoadControlProfile loadControlProfile) {
+        Iterator<PooledPlayer> iterator = idlePlayers.descendingIterator();
+        while (iterator.hasNext()) {
+            PooledPlayer player = iterator.next();
+            if (player.loadControlProfile.equals(loadControlProfile)) {
+                iterator.remove();
+                return player;
+            }
+        }
+        return build(loadControlProfile);
+    }
+
+    /**
+     * Resets {@code player} and returns it to the pool, or releases it if the pool is full.
+     *
+     * <p>The caller must have removed its own listeners from the player.
+     */
+    void release(PooledPlayer player) {
+        SimpleExoPlayer exoPlayer = player.exoPlayer;
+        if (idlePlayers.size() >= maxIdlePlayers) {
+            exoPlayer.release();
+            return;
+        }
+        exoPlayer.stop(/* reset= */ true);
+        exoPlayer.clearVideoSurface();
+        exoPlayer.setPlayWhenReady(false);
+        exoPlayer.setRepeatMode(Player.REPEAT_MODE_OFF);
+        exoPlayer.setVolume(1f);
+        exoPlayer.setPlaybackParameters(PlaybackParameters.DEFAULT);
+        exoPlayer.setSeekParameters(SeekParameters.DEFAULT);
+        exoPlayer.setAudioAttributes(AudioAttributes.DEFAULT, /* handleAudioFocus= */ true);
+        player.trackSelector.setParameters(defaultTrackSelectorParameters);
+        player.abrFactory.setStrategy(AbrTrackSelection.STRATEGY_THROUGHPUT);
+        player.idleSinceMs = SystemClock.elapsedRealtime();
+        idlePlayers.addLast(player);
+        scheduleTrim();
+    }
+
+    /** Releases every idle player. */
+    void clear() {
+        handler.removeCallbacks(trimRunnable);
+        while (!idlePlayers.isEmpty()) {
+            idlePlayers.removeFirst().exoPlayer.release();
+        }
+    }
+
+    private PooledPlayer build(LoadControlProfile loadControlProfile) {
+        DefaultBandwidthMeter bandwidthMeter = SharedBandwidthMeter.getInstance(context).getBandwidthMeter();
+        // The ABR strategy is chosen per player, and so can change when the player is reused.
+        AbrTrackSelection.Factory abrFactory = new AbrTrackSelection.Factory();
+        DefaultTrackSelector trackSelector = new DefaultTrackSelector(context, abrFactory);
+        trackSelector.setParameters(defaultTrackSelectorParameters);
+        // Buffer segments come from, and go back to, the pool shared by every player.
+        SegmentPool pool = SegmentPool.getInstance();
+        PlayerAllocator allocator = new PlayerAllocator(pool);
+        SimpleExoPlayer exoPlayer = new SimpleExoPlayer.Builder(/* context= */ context, new DefaultRenderersFactory(context))
+                .setBandwidthMeter(bandwidthMeter).setLoadControl(loadControlProfile.build(allocator, pool))
+                .setTrackSelector(trackSelector)
+                .setLooper(PlaybackThread.getInstance().getLooper())
+                .build();
+        exoPlayer.setAudioAttributes(AudioAttributes.DEFAULT, /* handleAudioFocus= */ true);
+        return new PooledPlayer(exoPlayer, trackSelector, abrFactory, bandwidthMeter, loadControlProfile, allocator);
+    }
+
+    private void scheduleTrim() {
+        handler.removeCallbacks(trimRunnable);
+        if (!idlePlayers.isEmpty()) {
+            handler.postDelayed(trimRunnable, idleTimeoutMs);
+        }
+    }
+
+    private void trim() {
+        long now = SystemClock.elapsedRealtime();
+        Iterator<PooledPlayer> iterator = idlePlayers.iterator();
+        while (iterator.hasNext()) {
+            PooledPlayer player = iterator.next();
+            if (now - player.idleSinceMs >= idleTimeoutMs) {
+                player.exoPlayer.release();
+                iterator.remove();
+            }
+        }
+        scheduleTrim();
+    }
+}
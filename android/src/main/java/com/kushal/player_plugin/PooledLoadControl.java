@@ -0,0 +1,78 @@
+package com.kushal.player_plugin;
+
+import com.google.android.exoplayer2.DefaultLoadControl;
+import com.google.android.exoplayer2.LoadControl;
+import com.google.android.exoplayer2.Renderer;
+import com.google.android.exoplayer2.source.TrackGroupArray;
+import com.google.android.exoplayer2.trackselection.TrackSelectionArray;
+import com.google.android.exoplayer2.upstream.Allocator;
+
+/**
+ * The load control of one player, which also pauses loading while the shared {@link SegmentPool} is
+ * used up, once the player has its minimum buffer.
+ *
+ * <p>The budget of the pool is not enforced through the bytes the allocator reports, as
+ * {@link DefaultLoadControl} then stops loading below the minimum buffer for profiles which do not
+ * prioritize time over size thresholds, and the player would rebuffer forever. Everything else is
+ * left to the wrapped load control.
+ */
+final class PooledLoadControl implements LoadControl {
+    private final DefaultLoadControl loadControl;
+    private final SegmentPool pool;
+    private final long minBufferUs;
+
+    PooledLoadControl(DefaultLoadControl loadControl, SegmentPool pool, long minBufferUs) {
+        this.loadControl = loadControl;
+        this.pool = pool;
+        this.minBufferUs = minBufferUs;
+    }
+
+    @Override
+    public void onPrepared() {
+        loadControl.onPrepared();
+    }
+
+    @Override
+    public void onTracksSelected(Renderer[] renderers, TrackGroupArray trackGroups,
+                                 TrackSelectionArray trackSelections) {
+        loadControl.onTracksSelected(renderers, trackGroups, trackSelections);
+    }
+
+    @Override
+    public void onStopped() {
+        loadControl.onStopped();
+    }
+
+    @Override
+    public void onReleased() {
+        loadControl.onReleased();
+    }
+
+    @Override
+    public Allocator getAllocator() {
+        return loadControl.getAllocator();
+    }
+
+    @Override
+    public long getBackBufferDurationUs() {
+        return loadControl.getBackBufferDurationUs();
+    }
+
+    @Override
+    public boolean retainBackBufferFromKeyframe() {
+        return loadControl.retainBackBufferFromKeyframe();
+    }
+
+    @Override
+    public boolean shouldContinueLoading(long bufferedDurationUs, float playbackSpeed) {
+        if (bufferedDurationUs >= minBufferUs && pool.isExhausted()) {
+            return false;
+        }
+        return loadControl.shouldContinueLoading(bufferedDurationUs, playbackSpeed);
+    }
+
+    @Override
+    public boolean shouldStartPlayback(long bufferedDurationUs, float playbackSpeed, boolean rebuffering) {
+        return loadControl.shouldStartPlayback(bufferedDurationUs, playbackSpeed, rebuffering);
+    }
+}
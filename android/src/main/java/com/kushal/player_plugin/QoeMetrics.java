@@ -0,0 +1,258 @@
+package com.kushal.player_plugin;
+
+import android.view.Surface;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.ExoPlaybackException;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.analytics.AnalyticsListener;
+import com.google.android.exoplayer2.source.MediaSourceEventListener.LoadEventInfo;
+import com.google.android.exoplayer2.source.MediaSourceEventListener.MediaLoadData;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Quality of experience metrics of one player.
+ *
+ * <p>Everything is kept in primitive counters and fixed-bucket histograms, so that recording an
+ * event does not allocate. Maps are only built when the metrics are read. Callbacks arrive on the
+ * application thread of the player, which is also where the metrics must be read.
+ *
+ * <p>A rebuffer is buffering while playing after the player was first ready. Buffering after a seek,
+ * or after the player is prepared again once the resource governor demoted it, is expected and not
+ * counted, until the player is ready again.
+ */
+final class QoeMetrics implements AnalyticsListener {
+
+    /** Counts values into buckets bounded by fixed upper limits, with a last bucket for the rest. */
+    static final class Histogram {
+        private final long[] upperBounds;
+        private final long[] counts;
+
+        Histogram(long... upperBounds) {
+            this.upperBounds = upperBounds;
+            counts = new long[upperBounds.length + 1];
+        }
+
+        void add(long value) {
+            int bucket = 0;
+            while (bucket < upperBounds.length && value >= upperBounds[bucket]) {
+                bucket++;
+            }
+            counts[bucket]++;
+        }
+
+        void addAll(Histogram other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("upperBounds", upperBounds.clone());
+            map.put("counts", counts.clone());
+            return map;
+        }
+    }
+
+    private final long startRealtimeMs;
+
+    // Summed over the players which rendered a frame, so that a rollup reports their mean.
+    private long timeToFirstFrameSumMs;
+    private int timeToFirstFrameCount;
+    private int playerCount = 1;
+    private boolean hasBeenReady;
+    private boolean ignoreBufferingUntilReady;
+    private boolean isRebuffering;
+    private long rebufferStartRealtimeMs;
+    private int rebufferCount;
+    private long rebufferDurationMs;
+    private boolean isPlaying;
+    private long playingSinceRealtimeMs;
+    private long playingDurationMs;
+    private long droppedFrames;
+    private int videoFormatChangeCount;
+    private int lastVideoBitrate = Format.NO_VALUE;
+    private int bitrateSwitchCount;
+    private long bytesLoaded;
+    private int loadCount;
+    private int loadErrorCount;
+    private int playerErrorCount;
+    private long bitrateEstimate;
+    private long bitrateEstimateRealtimeMs;
+
+    private final Histogram timeToFirstFrameHistogram = new Histogram(500, 1_000, 2_000, 4_000, 8_000);
+    private final Histogram rebufferDurationHistogram = new Histogram(250, 500, 1_000, 2_000, 5_000, 10_000);
+    private final Histogram loadDurationHistogram = new Histogram(100, 250, 500, 1_000, 2_000, 5_000);
+
+    /** @param startRealtimeMs the {@code elapsedRealtime} at which the player was created. */
+    QoeMetrics(long startRealtimeMs) {
+        this.startRealtimeMs = startRealtimeMs;
+    }
+
+    @Override
+    public void onRenderedFirstFrame(EventTime eventTime, Surface surface) {
+        if (timeToFirstFrameCount == 0) {
+            timeToFirstFrameSumMs = eventTime.realtimeMs - startRealtimeMs;
+            timeToFirstFrameCount = 1;
+            timeToFirstFrameHistogram.add(timeToFirstFrameSumMs);
+        }
+    }
+
+    @Override
+    public void onPlayerStateChanged(EventTime eventTime, boolean playWhenReady, int playbackState) {
+        if (playbackState == Player.STATE_READY) {
+            hasBeenReady = true;
+            ignoreBufferingUntilReady = false;
+        }
+        // Buffering before the first ready state is startup, not a rebuffer.
+        boolean rebuffering = hasBeenReady && !ignoreBufferingUntilReady && playWhenReady
+                && playbackState == Player.STATE_BUFFERING;
+        setRebuffering(rebuffering, eventTime.realtimeMs);
+    }
+
+    @Override
+    public void onSeekStarted(EventTime eventTime) {
+        // A rebuffer the seek interrupts ends here.
+        setRebuffering(false, eventTime.realtimeMs);
+        ignoreBufferingUntilReady = true;
+    }
+
+    /** Called before the player is prepared again after a demotion, whose buffering is not a rebuffer. */
+    void onReprepare() {
+        ignoreBufferingUntilReady = true;
+    }
+
+    @Override
+    public void onIsPlayingChanged(EventTime eventTime, boolean isPlaying) {
+        if (isPlaying && !this.isPlaying) {
+            playingSinceRealtimeMs = eventTime.realtimeMs;
+        } else if (!isPlaying && this.isPlaying) {
+            playingDurationMs += eventTime.realtimeMs - playingSinceRealtimeMs;
+        }
+        this.isPlaying = isPlaying;
+    }
+
+    @Override
+    public void onDroppedVideoFrames(EventTime eventTime, int droppedFrames, long elapsedMs) {
+        this.droppedFrames += droppedFrames;
+    }
+
+    @Override
+    public void onDownstreamFormatChanged(EventTime eventTime, MediaLoadData mediaLoadData) {
+        if (mediaLoadData.trackType != C.TRACK_TYPE_VIDEO || mediaLoadData.trackFormat == null) {
+            return;
+        }
+        videoFormatChangeCount++;
+        int bitrate = mediaLoadData.trackFormat.bitrate;
+        if (lastVideoBitrate != Format.NO_VALUE && bitrate != lastVideoBitrate) {
+            bitrateSwitchCount++;
+        }
+        lastVideoBitrate = bitrate;
+    }
+
+    @Override
+    public void onLoadCompleted(EventTime eventTime, LoadEventInfo loadEventInfo, MediaLoadData mediaLoadData) {
+        loadCount++;
+        bytesLoaded += loadEventInfo.bytesLoaded;
+        loadDurationHistogram.add(loadEventInfo.loadDurationMs);
+    }
+
+    @Override
+    public void onLoadError(EventTime eventTime, LoadEventInfo loadEventInfo, MediaLoadData mediaLoadData,
+                            IOException error, boolean wasCanceled) {
+        loadErrorCount++;
+    }
+
+    @Override
+    public void onPlayerError(EventTime eventTime, ExoPlaybackException error) {
+        playerErrorCount++;
+    }
+
+    @Override
+    public void onBandwidthEstimate(EventTime eventTime, int totalLoadTimeMs, long totalBytesLoaded,
+                                    long bitrateEstimate) {
+        this.bitrateEstimate = bitrateEstimate;
+        bitrateEstimateRealtimeMs = eventTime.realtimeMs;
+    }
+
+    /**
+     * Adds the counters and histograms of {@code other} to these, for a rollup of several players. The
+     * time to first frame becomes the mean over the players, and the bitrate estimate the latest one.
+     */
+    void addAll(QoeMetrics other, long nowRealtimeMs) {
+        playerCount += other.playerCount;
+        timeToFirstFrameSumMs += other.timeToFirstFrameSumMs;
+        timeToFirstFrameCount += other.timeToFirstFrameCount;
+        if (other.bitrateEstimateRealtimeMs > bitrateEstimateRealtimeMs) {
+            bitrateEstimate = other.bitrateEstimate;
+            bitrateEstimateRealtimeMs = other.bitrateEstimateRealtimeMs;
+        }
+        rebufferCount += other.rebufferCount;
+        rebufferDurationMs += other.getRebufferDurationMs(nowRealtimeMs);
+        playingDurationMs += other.getPlayingDurationMs(nowRealtimeMs);
+        droppedFrames += other.droppedFrames;
+        videoFormatChangeCount += other.videoFormatChangeCount;
+        bitrateSwitchCount += other.bitrateSwitchCount;
+        bytesLoaded += other.bytesLoaded;
+        loadCount += other.loadCount;
+        loadErrorCount += other.loadErrorCount;
+        playerErrorCount += other.playerErrorCount;
+        timeToFirstFrameHistogram.addAll(other.timeToFirstFrameHistogram);
+        rebufferDurationHistogram.addAll(other.rebufferDurationHistogram);
+        loadDurationHistogram.addAll(other.loadDurationHistogram);
+    }
+
+    /** Returns an empty instance to {@link #addAll} players into. */
+    static QoeMetrics newRollup() {
+        QoeMetrics rollup = new QoeMetrics(0);
+        rollup.playerCount = 0;
+        return rollup;
+    }
+
+    Map<String, Object> toMap(long nowRealtimeMs) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("playerCount", playerCount);
+        map.put("timeToFirstFrameMs", timeToFirstFrameCount > 0
+                ? timeToFirstFrameSumMs / timeToFirstFrameCount : C.TIME_UNSET);
+        map.put("rebufferCount", rebufferCount);
+        map.put("rebufferDurationMs", getRebufferDurationMs(nowRealtimeMs));
+        map.put("playingDurationMs", getPlayingDurationMs(nowRealtimeMs));
+        map.put("droppedFrames", droppedFrames);
+        map.put("videoFormatChangeCount", videoFormatChangeCount);
+        map.put("bitrateSwitchCount", bitrateSwitchCount);
+        map.put("bytesLoaded", bytesLoaded);
+        map.put("loadCount", loadCount);
+        map.put("loadErrorCount", loadErrorCount);
+        map.put("playerErrorCount", playerErrorCount);
+        map.put("bitrateEstimate", bitrateEstimate);
+        map.put("timeToFirstFrameHistogram", timeToFirstFrameHistogram.toMap());
+        map.put("rebufferDurationHistogram", rebufferDurationHistogram.toMap());
+        map.put("loadDurationHistogram", loadDurationHistogram.toMap());
+        return map;
+    }
+
+    private void setRebuffering(boolean rebuffering, long nowRealtimeMs) {
+        if (rebuffering && !isRebuffering) {
+            rebufferCount++;
+            rebufferStartRealtimeMs = nowRealtimeMs;
+        } else if (!rebuffering && isRebuffering) {
+            long durationMs = nowRealtimeMs - rebufferStartRealtimeMs;
+            rebufferDurationMs += durationMs;
+            rebufferDurationHistogram.add(durationMs);
+        }
+        isRebuffering = rebuffering;
+    }
+
+    private long getRebufferDurationMs(long nowRealtimeMs) {
+        return isRebuffering ? rebufferDurationMs + nowRealtimeMs - rebufferStartRealtimeMs : rebufferDurationMs;
+    }
+
+    private long getPlayingDurationMs(long nowRealtimeMs) {
+        return isPlaying ? playingDurationMs + nowRealtimeMs - playingSinceRealtimeMs : playingDurationMs;
+    }
+}
@@ -1,6 +1,11 @@
 package com.kushal.player_plugin;
 
+import android.os.Handler;
+import android.os.Looper;
+
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 
 import io.flutter.plugin.common.EventChannel;
 
@@ -8,63 +13,233 @@ import io.flutter.plugin.common.EventChannel;
 /**
  * And implementation of {@link EventChannel.EventSink} which can wrap an underlying sink.
  *
- * <p>It delivers messages immediately when downstream is available, but it queues messages before
- * the delegate event sink is set with setDelegate.
+ * <p>Events may be sent from any thread. They are queued and delivered to the delegate in batches on
+ * the main thread, with a single post per flush. While no delegate is set, events stay queued.
  *
- * <p>This class is not thread-safe. All calls must be done on the same thread or synchronized
- * externally.
+ * <p>The queue is bounded. An event which supersedes a pending event of the same type, such as a
+ * newer {@code bufferingUpdate} or {@code autoFormat}, replaces it. When the queue is full the
+ * oldest pending event is dropped, except for {@code initialized}, {@code completed},
+ * {@code itemTransition}, error and end-of-stream events, which are never dropped.
  */
 final class QueuingEventSink implements EventChannel.EventSink {
+  static final int DEFAULT_CAPACITY = 64;
+
+  private final Object lock = new Object();
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private final int capacity;
+  private final Runnable flushRunnable = new Runnable() {
+    @Override
+    public void run() {
+      flush();
+    }
+  };
+
+  // Guarded by lock. Superseded and dropped events leave a null in eventQueue until it is flushed
+  // or compacted, so that pendingIndexByType stays valid.
   private EventChannel.EventSink delegate;
   private ArrayList<Object> eventQueue = new ArrayList<>();
+  private ArrayList<Object> flushQueue = new ArrayList<>();
+  private final Map<String, Integer> pendingIndexByType = new HashMap<>();
+  private int pendingCount;
+  private boolean flushScheduled;
   private boolean done = false;
+  private long droppedCount;
+  private long coalescedCount;
+
+  QueuingEventSink() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  QueuingEventSink(int capacity) {
+    this.capacity = capacity;
+  }
 
   public void setDelegate(EventChannel.EventSink delegate) {
-    this.delegate = delegate;
-    maybeFlush();
+    synchronized (lock) {
+      this.delegate = delegate;
+      maybeScheduleFlush();
+    }
+  }
+
+  /** Returns a stream handler which delivers to the listener of the channel while there is one. */
+  EventChannel.StreamHandler getStreamHandler() {
+    return new EventChannel.StreamHandler() {
+      @Override
+      public void onListen(Object o, EventChannel.EventSink sink) {
+        setDelegate(sink);
+      }
+
+      @Override
+      public void onCancel(Object o) {
+        setDelegate(null);
+      }
+    };
   }
 
   @Override
   public void endOfStream() {
-    enqueue(new EndOfStreamEvent());
-    maybeFlush();
-    done = true;
+    synchronized (lock) {
+      enqueue(new EndOfStreamEvent());
+      done = true;
+      maybeScheduleFlush();
+    }
   }
 
   @Override
   public void error(String code, String message, Object details) {
-    enqueue(new ErrorEvent(code, message, details));
-    maybeFlush();
+    synchronized (lock) {
+      enqueue(new ErrorEvent(code, message, details));
+      maybeScheduleFlush();
+    }
   }
 
   @Override
   public void success(Object event) {
-    enqueue(event);
-    maybeFlush();
+    synchronized (lock) {
+      enqueue(event);
+      maybeScheduleFlush();
+    }
+  }
+
+  long getDroppedCount() {
+    synchronized (lock) {
+      return droppedCount;
+    }
+  }
+
+  long getCoalescedCount() {
+    synchronized (lock) {
+      return coalescedCount;
+    }
   }
 
   private void enqueue(Object event) {
     if (done) {
       return;
     }
+    String coalescingType = getCoalescingType(event);
+    if (coalescingType != null) {
+      Integer supersededIndex = pendingIndexByType.remove(coalescingType);
+      if (supersededIndex != null) {
+        eventQueue.set(supersededIndex, null);
+        pendingCount--;
+        coalescedCount++;
+      }
+    }
+    if (pendingCount >= capacity && !dropOldest() && !isUndroppable(event)) {
+      droppedCount++;
+      return;
+    }
+    if (eventQueue.size() >= 2 * capacity) {
+      compact();
+    }
     eventQueue.add(event);
+    pendingCount++;
+    if (coalescingType != null) {
+      pendingIndexByType.put(coalescingType, eventQueue.size() - 1);
+    }
   }
 
-  private void maybeFlush() {
-    if (delegate == null) {
+  private boolean dropOldest() {
+    for (int i = 0; i < eventQueue.size(); i++) {
+      Object event = eventQueue.get(i);
+      if (event != null && !isUndroppable(event)) {
+        String coalescingType = getCoalescingType(event);
+        if (coalescingType != null) {
+          pendingIndexByType.remove(coalescingType);
+        }
+        eventQueue.set(i, null);
+        pendingCount--;
+        droppedCount++;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void compact() {
+    int size = 0;
+    for (int i = 0; i < eventQueue.size(); i++) {
+      Object event = eventQueue.get(i);
+      if (event == null) {
+        continue;
+      }
+      String coalescingType = getCoalescingType(event);
+      if (coalescingType != null) {
+        pendingIndexByType.put(coalescingType, size);
+      }
+      eventQueue.set(size++, event);
+    }
+    eventQueue.subList(size, eventQueue.size()).clear();
+  }
+
+  private void maybeScheduleFlush() {
+    if (delegate == null || flushScheduled || pendingCount == 0) {
       return;
     }
-    for (Object event : eventQueue) {
+    flushScheduled = true;
+    mainHandler.post(flushRunnable);
+  }
+
+  private void flush() {
+    EventChannel.EventSink sink;
+    ArrayList<Object> batch;
+    synchronized (lock) {
+      flushScheduled = false;
+      sink = delegate;
+      if (sink == null) {
+        return;
+      }
+      batch = eventQueue;
+      eventQueue = flushQueue;
+      flushQueue = batch;
+      pendingIndexByType.clear();
+      pendingCount = 0;
+    }
+    for (int i = 0; i < batch.size(); i++) {
+      Object event = batch.get(i);
+      if (event == null) {
+        continue;
+      }
       if (event instanceof EndOfStreamEvent) {
-        delegate.endOfStream();
+        sink.endOfStream();
       } else if (event instanceof ErrorEvent) {
         ErrorEvent errorEvent = (ErrorEvent) event;
-        delegate.error(errorEvent.code, errorEvent.message, errorEvent.details);
+        sink.error(errorEvent.code, errorEvent.message, errorEvent.details);
       } else {
-        delegate.success(event);
+        sink.success(event);
       }
     }
-    eventQueue.clear();
+    batch.clear();
+  }
+
+  private static String getEventType(Object event) {
+    if (event instanceof Map) {
+      Object type = ((Map<?, ?>) event).get("event");
+      return type instanceof String ? (String) type : null;
+    }
+    if (event instanceof byte[]) {
+      return EventCodec.getEventType((byte[]) event);
+    }
+    return null;
+  }
+
+  /** Returns the type under which a newer event replaces a pending one, or null. */
+  private static String getCoalescingType(Object event) {
+    String type = getEventType(event);
+    if ("bufferingUpdate".equals(type) || "autoFormat".equals(type) || "tick".equals(type)
+        || "stats".equals(type) || "liveLatency".equals(type)) {
+      return type;
+    }
+    return null;
+  }
+
+  private static boolean isUndroppable(Object event) {
+    if (event instanceof EndOfStreamEvent || event instanceof ErrorEvent) {
+      return true;
+    }
+    String type = getEventType(event);
+    return "initialized".equals(type) || "completed".equals(type) || "itemTransition".equals(type);
   }
 
   private static class EndOfStreamEvent {}
@@ -0,0 +1,135 @@
+package com.kushal.player_plugin;
+
+import android.content.ComponentCallbacks2;
+import android.os.Handler;
+
+import java.util.ArrayList;
+
+/**
+ * Caps the decoders and buffer memory held by the players of the plugin together.
+ *
+ * <p>Every prepared player holds decoders, which are a scarce hardware resource, and a buffer of up
+ * to tens of megabytes. Once more players are active than the maximum, or their buffers exceed the
+ * byte budget, the least recently played players which are not playing are demoted: they release
+ * their decoders and buffers but keep their position and surface, and are restored when played.
+ * Players which are playing are never demoted. On memory pressure every player which is not
+ * playing is demoted. Players are only managed once they are initialized, as a player demoted while
+ * preparing would never become ready to be played.
+ *
+ * <p>Both limits are therefore soft: players which are preparing, or which are playing, hold their
+ * decoders and buffers in addition to them, and are only counted once initialized and only demoted
+ * once paused. With more players playing at once than the maximum, all of them keep their decoders,
+ * and the device may fail to allocate more.
+ *
+ * <p>Must only be used on the {@link PlaybackThread}.
+ */
+final class ResourceGovernor {
+    static final int DEFAULT_MAX_ACTIVE_PLAYERS = 4;
+    static final long DEFAULT_MAX_BUFFER_BYTES = 96L * 1024 * 1024;
+    /** How often the byte budget is checked, as buffers grow while players load. */
+    private static final long CHECK_INTERVAL_MS = 5_000;
+
+    /** A player whose resources the governor manages. */
+    interface Member {
+        /** Returns whether the player is playing, or waiting for data to play. */
+        boolean getPlayWhenReady();
+
+        int getBufferedBytes();
+
+        /** Releases the decoders and buffers of the player, keeping its position and surface. */
+        void demote();
+    }
+
+    private final Handler handler = PlaybackThread.getInstance().getHandler();
+    // Active members, from the least to the most recently played.
+    private final ArrayList<Member> members = new ArrayList<>();
+    private int maxActivePlayers = DEFAULT_MAX_ACTIVE_PLAYERS;
+    private long maxBufferBytes = DEFAULT_MAX_BUFFER_BYTES;
+    private boolean checkScheduled;
+
+    private final Runnable checkRunnable = new Runnable() {
+        @Override
+        public void run() {
+            checkScheduled = false;
+            enforce(null);
+            scheduleCheck();
+        }
+    };
+
+    void configure(int maxActivePlayers, long maxBufferBytes) {
+        this.maxActivePlayers = maxActivePlayers;
+        this.maxBufferBytes = maxBufferBytes;
+        enforce(null);
+    }
+
+    /**
+     * Marks {@code member} as active and most recently played, and demotes other members if the
+     * limits are exceeded.
+     */
+    void activate(Member member) {
+        members.remove(member);
+        members.add(member);
+        enforce(member);
+        scheduleCheck();
+    }
+
+    /** Stops managing {@code member}, which was disposed. */
+    void remove(Member member) {
+        members.remove(member);
+        if (members.isEmpty()) {
+            handler.removeCallbacks(checkRunnable);
+            checkScheduled = false;
+        }
+    }
+
+    /** Responds to {@link ComponentCallbacks2#onTrimMemory}. */
+    void trimMemory(int level) {
+        if (level < ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            return;
+        }
+        for (int i = members.size() - 1; i >= 0; i--) {
+            if (!members.get(i).getPlayWhenReady()) {
+                demote(i);
+            }
+        }
+    }
+
+    private void enforce(Member keep) {
+        while (members.size() > maxActivePlayers && demoteLeastRecentlyPlayed(keep)) {
+            // Demoted one.
+        }
+        while (getBufferedBytes() > maxBufferBytes && demoteLeastRecentlyPlayed(keep)) {
+            // Demoted one.
+        }
+    }
+
+    private boolean demoteLeastRecentlyPlayed(Member keep) {
+        for (int i = 0; i < members.size(); i++) {
+            Member member = members.get(i);
+            if (member != keep && !member.getPlayWhenReady()) {
+                demote(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void demote(int index) {
+        members.remove(index).demote();
+    }
+
+    private long getBufferedBytes() {
+        long bytes = 0;
+        for (int i = 0; i < members.size(); i++) {
+            bytes += members.get(i).getBufferedBytes();
+        }
+        return bytes;
+    }
+
+    private void scheduleCheck() {
+        if (!checkScheduled && !members.isEmpty()) {
+            checkScheduled = true;
+            handler.postDelayed(checkRunnable, CHECK_INTERVAL_MS);
+        }
+    }
+}
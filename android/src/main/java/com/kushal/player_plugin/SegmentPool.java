@@ -0,0 +1,108 @@
+package com.kushal.player_plugin;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.upstream.Allocation;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The buffer segments shared by every player of the plugin, with a byte budget.
+ *
+ * <p>Players allocate their media buffers segment by segment through a {@link PlayerAllocator}.
+ * Released segments are kept here for the next allocation of any player instead of being garbage
+ * collected, as long as the segments in use and in the pool fit the budget. While the budget is used
+ * up, the load controls of all players pause loading once they have their minimum buffer. Players
+ * with less than their minimum buffer still load, and the segments they get beyond the budget are
+ * counted as allocation failures and left to the garbage collector once released.
+ *
+ * <p>Thread safe, as players allocate on their loader threads and release on the playback thread.
+ */
+final class SegmentPool {
+    static final long DEFAULT_MAX_BYTES = 128L * 1024 * 1024;
+    static final int SEGMENT_SIZE = C.DEFAULT_BUFFER_SEGMENT_SIZE;
+
+    private static SegmentPool instance;
+
+    private Allocation[] freeSegments = new Allocation[64];
+    private int freeCount;
+    private int maxSegments = (int) (DEFAULT_MAX_BYTES / SEGMENT_SIZE);
+    private int allocatedCount;
+    private int highWaterCount;
+    private long allocationFailures;
+
+    private SegmentPool() {}
+
+    static synchronized SegmentPool getInstance() {
+        if (instance == null) {
+            instance = new SegmentPool();
+        }
+        return instance;
+    }
+
+    /** Sets the byte budget, releasing pooled segments which no longer fit it. */
+    synchronized void setMaxBytes(long maxBytes) {
+        maxSegments = (int) Math.max(1, maxBytes / SEGMENT_SIZE);
+        trimTo(maxSegments - allocatedCount);
+    }
+
+    synchronized Allocation allocate() {
+        Allocation allocation;
+        if (freeCount > 0) {
+            allocation = freeSegments[--freeCount];
+            freeSegments[freeCount] = null;
+        } else {
+            if (allocatedCount >= maxSegments) {
+                allocationFailures++;
+            }
+            allocation = new Allocation(new byte[SEGMENT_SIZE], 0);
+        }
+        allocatedCount++;
+        highWaterCount = Math.max(highWaterCount, allocatedCount);
+        return allocation;
+    }
+
+    synchronized void release(Allocation allocation) {
+        allocatedCount--;
+        if (allocatedCount + freeCount < maxSegments) {
+            if (freeCount == freeSegments.length) {
+                Allocation[] grown = new Allocation[freeSegments.length * 2];
+                System.arraycopy(freeSegments, 0, grown, 0, freeCount);
+                freeSegments = grown;
+            }
+            freeSegments[freeCount++] = allocation;
+        }
+    }
+
+    synchronized void release(Allocation[] allocations) {
+        for (Allocation allocation : allocations) {
+            release(allocation);
+        }
+    }
+
+    /** Returns whether the segments in use take up the whole budget. */
+    synchronized boolean isExhausted() {
+        return allocatedCount >= maxSegments;
+    }
+
+    /** Releases the pooled segments to the garbage collector, under memory pressure. */
+    synchronized void trim() {
+        trimTo(0);
+    }
+
+    synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("maxBytes", (long) maxSegments * SEGMENT_SIZE);
+        stats.put("allocatedBytes", (long) allocatedCount * SEGMENT_SIZE);
+        stats.put("pooledBytes", (long) freeCount * SEGMENT_SIZE);
+        stats.put("highWaterBytes", (long) highWaterCount * SEGMENT_SIZE);
+        stats.put("allocationFailures", allocationFailures);
+        return stats;
+    }
+
+    private void trimTo(int count) {
+        while (freeCount > Math.max(0, count)) {
+            freeSegments[--freeCount] = null;
+        }
+    }
+}
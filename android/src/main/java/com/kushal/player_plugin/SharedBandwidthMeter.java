@@ -0,0 +1,104 @@
+package com.kushal.player_plugin;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.upstream.BandwidthMeter;
+import com.google.android.exoplayer2.upstream.DefaultBandwidthMeter;
+import com.google.android.exoplayer2.util.Util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The bandwidth meter shared by every player of the plugin.
+ *
+ * <p>Its estimate is persisted per network type, and an estimate persisted by a previous launch is
+ * used as the initial estimate for that network type, so that new players do not start from the
+ * cold default.
+ */
+final class SharedBandwidthMeter {
+    private static final String PREFERENCES_NAME = "player_plugin_bandwidth";
+    private static final long MAX_ESTIMATE_AGE_MS = 7L * 24 * 60 * 60 * 1000;
+    private static final long MIN_PERSIST_INTERVAL_MS = 10_000;
+    private static final int[] NETWORK_TYPES = {
+            C.NETWORK_TYPE_WIFI, C.NETWORK_TYPE_ETHERNET, C.NETWORK_TYPE_4G, C.NETWORK_TYPE_3G, C.NETWORK_TYPE_2G,
+            C.NETWORK_TYPE_CELLULAR_UNKNOWN, C.NETWORK_TYPE_OTHER};
+
+    private static SharedBandwidthMeter instance;
+
+    private final Context context;
+    private final SharedPreferences preferences;
+    private final DefaultBandwidthMeter bandwidthMeter;
+    private long lastPersistElapsedMs = -MIN_PERSIST_INTERVAL_MS;
+
+    private SharedBandwidthMeter(Context context) {
+        this.context = context;
+        preferences = context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+        DefaultBandwidthMeter.Builder builder = new DefaultBandwidthMeter.Builder(context)
+                .setResetOnNetworkTypeChange(true);
+        long now = System.currentTimeMillis();
+        for (int networkType : NETWORK_TYPES) {
+            long estimate = preferences.getLong(estimateKey(networkType), 0);
+            if (estimate > 0 && now - preferences.getLong(timestampKey(networkType), 0) <= MAX_ESTIMATE_AGE_MS) {
+                builder.setInitialBitrateEstimate(networkType, estimate);
+            }
+        }
+        bandwidthMeter = builder.build();
+        bandwidthMeter.addEventListener(new Handler(Looper.getMainLooper()), new BandwidthMeter.EventListener() {
+            @Override
+            public void onBandwidthSample(int elapsedMs, long bytesTransferred, long bitrateEstimate) {
+                maybePersist(bitrateEstimate);
+            }
+        });
+    }
+
+    static synchronized SharedBandwidthMeter getInstance(Context context) {
+        if (instance == null) {
+            instance = new SharedBandwidthMeter(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    DefaultBandwidthMeter getBandwidthMeter() {
+        return bandwidthMeter;
+    }
+
+    Map<String, Object> getEstimate() {
+        int networkType = Util.getNetworkType(context);
+        Map<String, Object> estimate = new HashMap<>();
+        estimate.put("bitrateEstimate", bandwidthMeter.getBitrateEstimate());
+        estimate.put("networkType", networkType);
+        estimate.put("persistedEstimate", preferences.getLong(estimateKey(networkType), 0));
+        estimate.put("persistedAtMs", preferences.getLong(timestampKey(networkType), 0));
+        return estimate;
+    }
+
+    private void maybePersist(long bitrateEstimate) {
+        long nowElapsedMs = SystemClock.elapsedRealtime();
+        if (nowElapsedMs - lastPersistElapsedMs < MIN_PERSIST_INTERVAL_MS) {
+            return;
+        }
+        int networkType = Util.getNetworkType(context);
+        if (networkType == C.NETWORK_TYPE_UNKNOWN || networkType == C.NETWORK_TYPE_OFFLINE) {
+            return;
+        }
+        lastPersistElapsedMs = nowElapsedMs;
+        preferences.edit()
+                .putLong(estimateKey(networkType), bitrateEstimate)
+                .putLong(timestampKey(networkType), System.currentTimeMillis())
+                .apply();
+    }
+
+    private static String estimateKey(int networkType) {
+        return "estimate_" + networkType;
+    }
+
+    private static String timestampKey(int networkType) {
+        return "timestamp_" + networkType;
+    }
+}
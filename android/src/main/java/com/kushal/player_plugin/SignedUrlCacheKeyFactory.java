@@ -0,0 +1,83 @@
+package com.kushal.player_plugin;
+
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.cache.CacheKeyFactory;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * A {@link CacheKeyFactory} which drops signed-URL query tokens from the cache key.
+ *
+ * <p>CDN-signed URLs for the same object differ only in their expiry and signature parameters, so
+ * keying the cache on the full URI would make every freshly signed URL a miss. Any other query
+ * parameters are kept in their original order.
+ *
+ * <p>By default only parameters which are unambiguously signatures are dropped: the S3 and GCS
+ * {@code X-Amz-*} and {@code X-Goog-*} ones, the CloudFront {@code Key-Pair-Id}, {@code Signature}
+ * and {@code Policy}, and the Akamai {@code hdnts}. Short or generic names, which may as well select
+ * the content, are only dropped once {@link #setExtraSignedQueryParameters added}. The manifest
+ * cache keys its entries the same way.
+ */
+final class SignedUrlCacheKeyFactory implements CacheKeyFactory {
+    private static final Set<String> SIGNED_QUERY_PARAMETERS = new HashSet<>(Arrays.asList(
+            "Key-Pair-Id", "Signature", "Policy", "hdnts"));
+    private static final String[] SIGNED_QUERY_PARAMETER_PREFIXES = {"x-amz-", "x-goog-"};
+
+    private static volatile Set<String> extraSignedQueryParameters = Collections.emptySet();
+
+    /**
+     * Sets the names of further query parameters to drop from cache keys, matched exactly. Keys of
+     * media cached before with other names no longer match.
+     */
+    static void setExtraSignedQueryParameters(Collection<String> names) {
+        extraSignedQueryParameters = names == null ? Collections.<String>emptySet()
+                : Collections.unmodifiableSet(new HashSet<>(names));
+    }
+
+    @Override
+    public String buildCacheKey(DataSpec dataSpec) {
+        if (dataSpec.key != null) {
+            return dataSpec.key;
+        }
+        return stripSignedQueryParameters(dataSpec.uri.toString());
+    }
+
+    static String stripSignedQueryParameters(String uri) {
+        int queryStart = uri.indexOf('?');
+        if (queryStart < 0) {
+            return uri;
+        }
+        int fragmentStart = uri.indexOf('#', queryStart);
+        String query = fragmentStart < 0 ? uri.substring(queryStart + 1) : uri.substring(queryStart + 1, fragmentStart);
+        StringBuilder key = new StringBuilder(uri.length()).append(uri, 0, queryStart);
+        char separator = '?';
+        for (String parameter : query.split("&")) {
+            if (parameter.isEmpty() || isSignedQueryParameter(parameter)) {
+                continue;
+            }
+            key.append(separator).append(parameter);
+            separator = '&';
+        }
+        return key.toString();
+    }
+
+    private static boolean isSignedQueryParameter(String parameter) {
+        int nameEnd = parameter.indexOf('=');
+        String name = nameEnd < 0 ? parameter : parameter.substring(0, nameEnd);
+        if (SIGNED_QUERY_PARAMETERS.contains(name) || extraSignedQueryParameters.contains(name)) {
+            return true;
+        }
+        String lowerCaseName = name.toLowerCase(Locale.US);
+        for (String prefix : SIGNED_QUERY_PARAMETER_PREFIXES) {
+            if (lowerCaseName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
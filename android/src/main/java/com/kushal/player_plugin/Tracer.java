@@ -0,0 +1,141 @@
+package com.kushal.player_plugin;
+
+import android.os.Trace;
+
+import androidx.annotation.RequiresApi;
+
+import com.google.android.exoplayer2.util.Util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Latency spans of method calls and player lifecycles, kept in a fixed-size ring buffer for
+ * {@code traceDump}, and emitted as platform trace sections for systrace and Perfetto.
+ *
+ * <p>Spans measured on one thread are {@link #begin begun} and {@link #end ended} around the work,
+ * which also opens and closes a trace section. Spans across callbacks, such as from prepare to
+ * ready, take their start from {@link #now} and are {@link #record recorded} once they end; they
+ * only go to the ring buffer. Spans are attributed to the texture id of a player, or to
+ * {@link #NO_TEXTURE_ID} for plugin calls.
+ *
+ * <p>Tracing is off by default. While off, every method returns after reading one volatile field,
+ * and a start time of 0 marks a span begun while off, which is then neither ended nor recorded.
+ *
+ * <p>Thread safe, as spans are measured on the main thread and the playback thread.
+ */
+final class Tracer {
+    static final long NO_TEXTURE_ID = -1;
+    static final int CAPACITY = 1024;
+
+    private static volatile boolean enabled;
+
+    private static final long[] textureIds = new long[CAPACITY];
+    private static final String[] names = new String[CAPACITY];
+    private static final String[] threads = new String[CAPACITY];
+    private static final long[] startTimesNs = new long[CAPACITY];
+    private static final long[] durationsNs = new long[CAPACITY];
+    // The slot the next span is written to, and the number of spans recorded since the last clear.
+    private static int nextIndex;
+    private static long recordedCount;
+
+    private Tracer() {}
+
+    /** Turns tracing on or off. Turning it on clears the spans recorded before. */
+    static synchronized void setEnabled(boolean enable) {
+        if (enable && !enabled) {
+            nextIndex = 0;
+            recordedCount = 0;
+        }
+        enabled = enable;
+    }
+
+    /** Returns the start time of a span, or 0 if tracing is off. */
+    static long now() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /** Begins a span on the current thread, to be passed to {@link #end} on the same thread. */
+    static long begin(String name) {
+        if (!enabled) {
+            return 0;
+        }
+        if (Util.SDK_INT >= 18) {
+            beginSectionV18(name);
+        }
+        return System.nanoTime();
+    }
+
+    /** Ends the span begun at {@code startTimeNs} on the current thread, and records it. */
+    static void end(long textureId, String name, long startTimeNs) {
+        if (startTimeNs == 0) {
+            return;
+        }
+        if (Util.SDK_INT >= 18) {
+            endSectionV18();
+        }
+        record(textureId, name, startTimeNs);
+    }
+
+    /** Records a span which started at {@code startTimeNs}, as returned by {@link #now}, and ends now. */
+    static void record(long textureId, String name, long startTimeNs) {
+        if (startTimeNs == 0) {
+            return;
+        }
+        long durationNs = System.nanoTime() - startTimeNs;
+        String thread = Thread.currentThread().getName();
+        synchronized (Tracer.class) {
+            textureIds[nextIndex] = textureId;
+            names[nextIndex] = name;
+            threads[nextIndex] = thread;
+            startTimesNs[nextIndex] = startTimeNs;
+            durationsNs[nextIndex] = durationNs;
+            nextIndex = (nextIndex + 1) % CAPACITY;
+            recordedCount++;
+        }
+    }
+
+    /**
+     * Returns the recent spans by texture id, oldest first, each with its name, thread, monotonic
+     * start time and duration in microseconds. With {@code textureId} set, only its spans are
+     * returned.
+     */
+    static synchronized Map<String, Object> dump(Long textureId) {
+        Map<Long, List<Map<String, Object>>> spans = new HashMap<>();
+        int count = (int) Math.min(recordedCount, CAPACITY);
+        int index = (nextIndex - count + CAPACITY) % CAPACITY;
+        for (int i = 0; i < count; i++, index = (index + 1) % CAPACITY) {
+            if (textureId != null && textureIds[index] != textureId) {
+                continue;
+            }
+            List<Map<String, Object>> textureSpans = spans.get(textureIds[index]);
+            if (textureSpans == null) {
+                textureSpans = new ArrayList<>();
+                spans.put(textureIds[index], textureSpans);
+            }
+            Map<String, Object> span = new HashMap<>();
+            span.put("name", names[index]);
+            span.put("thread", threads[index]);
+            span.put("startUs", startTimesNs[index] / 1000);
+            span.put("durationUs", durationsNs[index] / 1000);
+            textureSpans.add(span);
+        }
+        Map<String, Object> dump = new HashMap<>();
+        dump.put("enabled", enabled);
+        dump.put("dropped", Math.max(0, recordedCount - CAPACITY));
+        dump.put("spans", spans);
+        return dump;
+    }
+
+    @RequiresApi(18)
+    private static void beginSectionV18(String name) {
+        Trace.beginSection(name);
+    }
+
+    @RequiresApi(18)
+    private static void endSectionV18() {
+        Trace.endSection();
+    }
+}
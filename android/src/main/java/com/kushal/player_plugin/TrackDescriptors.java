@@ -0,0 +1,76 @@
+package com.kushal.player_plugin;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.source.TrackGroup;
+import com.google.android.exoplayer2.source.TrackGroupArray;
+import com.google.android.exoplayer2.trackselection.MappingTrackSelector.MappedTrackInfo;
+import com.google.android.exoplayer2.ui.TrackNameProvider;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed descriptors of the audio, video and text tracks of a player.
+ *
+ * <p>Each track is described by a map which the standard message codec sends as is. The renderer,
+ * group and track indices of a descriptor identify it for {@code selectTrack}.
+ */
+final class TrackDescriptors {
+    final List<Map<String, Object>> audios = new ArrayList<>();
+    final List<Map<String, Object>> videos = new ArrayList<>();
+    final List<Map<String, Object>> texts = new ArrayList<>();
+
+    /** Describes every track of {@code mappedTrackInfo} in a single pass. */
+    static TrackDescriptors build(MappedTrackInfo mappedTrackInfo, TrackNameProvider trackNameProvider) {
+        TrackDescriptors descriptors = new TrackDescriptors();
+        for (int rendererIndex = 0; rendererIndex < mappedTrackInfo.getRendererCount(); rendererIndex++) {
+            List<Map<String, Object>> target;
+            String type;
+            switch (mappedTrackInfo.getRendererType(rendererIndex)) {
+                case C.TRACK_TYPE_AUDIO:
+                    target = descriptors.audios;
+                    type = "audio";
+                    break;
+                case C.TRACK_TYPE_VIDEO:
+                    target = descriptors.videos;
+                    type = "video";
+                    break;
+                case C.TRACK_TYPE_TEXT:
+                    target = descriptors.texts;
+                    type = "text";
+                    break;
+                default:
+                    continue;
+            }
+            TrackGroupArray trackGroups = mappedTrackInfo.getTrackGroups(rendererIndex);
+            for (int groupIndex = 0; groupIndex < trackGroups.length; groupIndex++) {
+                TrackGroup group = trackGroups.get(groupIndex);
+                for (int trackIndex = 0; trackIndex < group.length; trackIndex++) {
+                    target.add(describe(type, rendererIndex, groupIndex, trackIndex, group.getFormat(trackIndex),
+                            trackNameProvider));
+                }
+            }
+        }
+        return descriptors;
+    }
+
+    private static Map<String, Object> describe(String type, int rendererIndex, int groupIndex, int trackIndex,
+                                                Format format, TrackNameProvider trackNameProvider) {
+        Map<String, Object> descriptor = new HashMap<>(16);
+        descriptor.put("id", format.id);
+        descriptor.put("type", type);
+        descriptor.put("rendererIndex", rendererIndex);
+        descriptor.put("groupIndex", groupIndex);
+        descriptor.put("trackIndex", trackIndex);
+        descriptor.put("width", format.width);
+        descriptor.put("height", format.height);
+        descriptor.put("bitrate", format.bitrate);
+        descriptor.put("codecs", format.codecs);
+        descriptor.put("language", format.language);
+        descriptor.put("label", format.label != null ? format.label : trackNameProvider.getTrackName(format));
+        return descriptor;
+    }
+}
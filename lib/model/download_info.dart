@@ -0,0 +1,48 @@
+/// Describes a download for offline playback.
+class DownloadInfo {
+  /// The uri of the downloaded media, which also identifies the download.
+  final String uri;
+  final String title;
+
+  /// One of queued, stopped, downloading, completed, failed, removing or
+  /// restarting, or null once the download is removed.
+  final String state;
+
+  /// Whether the download was paused with [PlayerPlugin.pauseDownload].
+  final bool stopped;
+  final bool failed;
+  final double percentDownloaded;
+  final int bytesDownloaded;
+  final int contentLength;
+
+  DownloadInfo(
+      {this.uri,
+      this.title,
+      this.state,
+      this.stopped = false,
+      this.failed = false,
+      this.percentDownloaded,
+      this.bytesDownloaded,
+      this.contentLength});
+
+  DownloadInfo.fromMap(Map<dynamic, dynamic> map)
+      : this(
+          uri: map['uri'],
+          title: map['title'],
+          state: map['state'],
+          stopped: map['stopped'],
+          failed: map['failed'],
+          percentDownloaded: map['percentDownloaded'],
+          bytesDownloaded: map['bytesDownloaded'],
+          contentLength: map['contentLength'],
+        );
+
+  bool get isCompleted => state == 'completed';
+
+  @override
+  String toString() {
+    return 'DownloadInfo(uri: $uri, state: $state, stopped: $stopped, '
+        'percentDownloaded: $percentDownloaded, '
+        'bytesDownloaded: $bytesDownloaded)';
+  }
+}
@@ -0,0 +1,28 @@
+/// Keeps a live stream at [targetOffset] behind the live edge.
+///
+/// Drifts are corrected by playing between [minSpeed] and [maxSpeed] times
+/// the speed set with [VideoPlayerController.setSpeed]. A player which fell
+/// more than [maxDrift] behind the target, e.g. after rebuffering, seeks back
+/// to it instead. Parameters left null keep the platform defaults of 0.97,
+/// 1.03 and 10 seconds.
+class LiveConfiguration {
+  final Duration targetOffset;
+  final double minSpeed;
+  final double maxSpeed;
+  final Duration maxDrift;
+
+  const LiveConfiguration(
+      {this.targetOffset = const Duration(seconds: 5),
+      this.minSpeed,
+      this.maxSpeed,
+      this.maxDrift});
+
+  Map<String, dynamic> toMap() {
+    return <String, dynamic>{
+      'targetOffsetMs': targetOffset.inMilliseconds,
+      'minSpeed': minSpeed,
+      'maxSpeed': maxSpeed,
+      'maxDriftMs': maxDrift?.inMilliseconds,
+    };
+  }
+}
@@ -0,0 +1,62 @@
+/// The buffering parameters of a player.
+///
+/// Use one of the presets, or override some of their parameters with
+/// [LoadControlProfile.custom]. Parameters left null keep the value of the
+/// [preset].
+class LoadControlProfile {
+  /// The ExoPlayer defaults.
+  static const LoadControlProfile standard =
+      LoadControlProfile._preset('default');
+
+  /// Starts and resumes playback as soon as possible, for live content.
+  static const LoadControlProfile lowLatency =
+      LoadControlProfile._preset('lowLatency');
+
+  /// Buffers less ahead, so that less data is wasted when playback is
+  /// abandoned.
+  static const LoadControlProfile dataSaver =
+      LoadControlProfile._preset('dataSaver');
+
+  /// Caps the buffer size, so that several players can be alive on low-end
+  /// devices.
+  static const LoadControlProfile memoryConstrained =
+      LoadControlProfile._preset('memoryConstrained');
+
+  final String preset;
+  final Duration minBuffer;
+  final Duration maxBuffer;
+  final Duration bufferForPlayback;
+  final Duration bufferForPlaybackAfterRebuffer;
+  final int targetBufferBytes;
+  final bool prioritizeTimeOverSizeThresholds;
+
+  const LoadControlProfile._preset(this.preset)
+      : minBuffer = null,
+        maxBuffer = null,
+        bufferForPlayback = null,
+        bufferForPlaybackAfterRebuffer = null,
+        targetBufferBytes = null,
+        prioritizeTimeOverSizeThresholds = null;
+
+  const LoadControlProfile.custom(
+      {this.preset = 'default',
+      this.minBuffer,
+      this.maxBuffer,
+      this.bufferForPlayback,
+      this.bufferForPlaybackAfterRebuffer,
+      this.targetBufferBytes,
+      this.prioritizeTimeOverSizeThresholds});
+
+  Map<String, dynamic> toMap() {
+    return <String, dynamic>{
+      'preset': preset,
+      'minBufferMs': minBuffer?.inMilliseconds,
+      'maxBufferMs': maxBuffer?.inMilliseconds,
+      'bufferForPlaybackMs': bufferForPlayback?.inMilliseconds,
+      'bufferForPlaybackAfterRebufferMs':
+          bufferForPlaybackAfterRebuffer?.inMilliseconds,
+      'targetBufferBytes': targetBufferBytes,
+      'prioritizeTimeOverSizeThresholds': prioritizeTimeOverSizeThresholds,
+    };
+  }
+}
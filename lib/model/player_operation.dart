@@ -0,0 +1,59 @@
+/// A player method call to apply with [PlayerPlugin.batch].
+class PlayerOperation {
+  final int textureId;
+  final String method;
+  final Map<String, dynamic> arguments;
+
+  PlayerOperation(this.textureId, this.method,
+      [this.arguments = const <String, dynamic>{}]);
+
+  /// [mode] is 'exact', 'closestSync', 'previousSync' or 'nextSync', see
+  /// [SeekMode].
+  PlayerOperation.seekTo(int textureId, Duration position,
+      {String mode = 'exact'})
+      : this(textureId, 'seekTo', <String, dynamic>{
+          'location': position.inMilliseconds,
+          'mode': mode,
+        });
+
+  PlayerOperation.speed(int textureId, double speed)
+      : this(textureId, 'speed', <String, dynamic>{'speed': speed});
+
+  PlayerOperation.volume(int textureId, double volume)
+      : this(textureId, 'setVolume', <String, dynamic>{'volume': volume});
+
+  PlayerOperation.play(int textureId) : this(textureId, 'play');
+
+  PlayerOperation.pause(int textureId) : this(textureId, 'pause');
+
+  Map<String, dynamic> toMap() {
+    return <String, dynamic>{
+      ...arguments,
+      'textureId': textureId,
+      'method': method,
+    };
+  }
+}
+
+/// The reply to one [PlayerOperation] of a batch.
+class PlayerOperationResult {
+  final dynamic value;
+
+  /// The error code, or null if the operation succeeded.
+  final String error;
+  final String message;
+
+  PlayerOperationResult({this.value, this.error, this.message});
+
+  PlayerOperationResult.fromMap(Map<dynamic, dynamic> map)
+      : this(value: map['value'], error: map['error'], message: map['message']);
+
+  bool get isError => error != null;
+
+  @override
+  String toString() {
+    return isError
+        ? 'PlayerOperationResult(error: $error, message: $message)'
+        : 'PlayerOperationResult(value: $value)';
+  }
+}
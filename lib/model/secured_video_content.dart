@@ -9,6 +9,11 @@ class MediaContent {
   final String ad_tag_uri;
   final List<String> playlist;
   final String spherical_stereo_mode;
+
+  /// Uris of WebVTT, SubRip, TTML or SSA files to side-load with [uri].
+  ///
+  /// They are listed with the subtitles of the media, labelled with their file
+  /// name, and each is only fetched once its track is selected.
   final List<String> subtitles;
   final String localMediaDRMCallbackKey;
 
@@ -0,0 +1,48 @@
+/// Describes an audio, video or text track the player can select.
+class TrackInfo {
+  final String id;
+  final String type;
+  final int rendererIndex;
+  final int groupIndex;
+  final int trackIndex;
+  final int width;
+  final int height;
+  final int bitrate;
+  final String codecs;
+  final String language;
+  final String label;
+
+  TrackInfo(
+      {this.id,
+      this.type,
+      this.rendererIndex,
+      this.groupIndex,
+      this.trackIndex,
+      this.width,
+      this.height,
+      this.bitrate,
+      this.codecs,
+      this.language,
+      this.label});
+
+  TrackInfo.fromMap(Map<dynamic, dynamic> map)
+      : this(
+          id: map['id'],
+          type: map['type'],
+          rendererIndex: map['rendererIndex'],
+          groupIndex: map['groupIndex'],
+          trackIndex: map['trackIndex'],
+          width: map['width'],
+          height: map['height'],
+          bitrate: map['bitrate'],
+          codecs: map['codecs'],
+          language: map['language'],
+          label: map['label'],
+        );
+
+  @override
+  String toString() {
+    return 'TrackInfo(type: $type, label: $label, language: $language, '
+        '${width}x$height, bitrate: $bitrate, codecs: $codecs)';
+  }
+}
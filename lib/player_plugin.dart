@@ -1,12 +1,17 @@
 import 'dart:async';
-import 'dart:convert';
 import 'dart:io';
+import 'dart:typed_data';
 
 import 'package:flutter/material.dart';
 import 'package:flutter/services.dart';
 import 'package:meta/meta.dart';
 
+import 'model/download_info.dart';
+import 'model/live_configuration.dart';
+import 'model/load_control_profile.dart';
+import 'model/player_operation.dart';
 import 'model/secured_video_content.dart';
+import 'model/track_info.dart';
 
 class PlayerPlugin {
   static const MethodChannel _channel =
@@ -17,6 +22,252 @@ class PlayerPlugin {
 //    return version;
 //  }
 
+  /// Configures the plugin-wide resources shared by all players and disposes
+  /// any existing players.
+  ///
+  /// [cacheMaxBytes] is the byte budget of the shared media cache. It only
+  /// takes effect if no media has been played yet in this process. Otherwise
+  /// a different budget fails with a `cache_already_open` [PlatformException],
+  /// after everything else is configured.
+  ///
+  /// The media buffers of all players come from one pool of memory segments,
+  /// which keeps released segments for reuse. [allocatorMaxBytes], 128 MiB by
+  /// default, caps the segments in use and pooled; while it is used up,
+  /// players pause loading once they have their minimum buffer, see
+  /// [allocatorStats].
+  ///
+  /// [playerPoolSize] players are built up front and kept idle so that
+  /// creating a controller does not have to build one. Idle players are
+  /// released after [playerPoolIdleTimeout].
+  ///
+  /// At most [maxConcurrentDownloads] titles download at once. The segments
+  /// of one title are fetched one after the other.
+  ///
+  /// All players and downloads share one HTTP stack and its connections.
+  /// [httpConnectTimeout] and [httpReadTimeout] apply to every request. With
+  /// [useOkHttp] requests go through OkHttp, which multiplexes them over
+  /// HTTP/2 where the server supports it.
+  ///
+  /// [maxActivePlayers], 4 by default, caps the players holding decoders,
+  /// and [maxBufferBytes], 96 MiB by default, their buffers. Beyond that, the least recently played paused players release their decoders
+  /// and buffers, keeping their position and last frame, and restore them
+  /// when played. Paused players also release them when the system runs low
+  /// on memory. Releases are counted in the `demotions` stat.
+  ///
+  /// Both limits are soft: players which are still initializing, or which are
+  /// playing, are never released, so while more of them exist at once than
+  /// [maxActivePlayers] they all hold decoders and buffers beyond the limits.
+  ///
+  /// Manifests are kept in a cache of [manifestCacheSize] entries, 32 by
+  /// default, so that re-opening media does not wait for its manifest, and
+  /// the player reports the duration and tracks it found last time right
+  /// away. VOD manifests stay fresh for [manifestCacheVodTtl], 10 minutes by
+  /// default, and live ones until the player would reload them. With
+  /// [manifestCacheOnDisk] they also survive the app process. A cached
+  /// manifest is served with the query tokens it was loaded with, so those
+  /// loaded from a signed uri stay fresh for at most a minute; tokens in its
+  /// segment uris must outlive [manifestCacheVodTtl]. Manifests in memory are
+  /// dropped when the system runs low on memory.
+  ///
+  /// Both caches key media by its uri without the query parameters of signed
+  /// URLs, so that a freshly signed uri of cached media still hits. Only the
+  /// S3 and GCS `X-Amz-*` and `X-Goog-*` parameters, and `Key-Pair-Id`,
+  /// `Signature`, `Policy` and `hdnts` are dropped by default. Further names,
+  /// such as the token of another CDN, can be listed in
+  /// [signedQueryParameters]; they are matched exactly.
+  static Future<void> init(
+      {int cacheMaxBytes,
+      int allocatorMaxBytes,
+      int playerPoolSize,
+      Duration playerPoolIdleTimeout,
+      int maxConcurrentDownloads,
+      Duration httpConnectTimeout,
+      Duration httpReadTimeout,
+      bool useOkHttp = false,
+      int maxActivePlayers,
+      int maxBufferBytes,
+      int manifestCacheSize,
+      Duration manifestCacheVodTtl,
+      bool manifestCacheOnDisk = false,
+      List<String> signedQueryParameters}) async {
+    await _channel.invokeMethod('init', <String, dynamic>{
+      'cacheMaxBytes': cacheMaxBytes,
+      'allocatorMaxBytes': allocatorMaxBytes,
+      'playerPoolSize': playerPoolSize,
+      'playerPoolIdleTimeoutMs': playerPoolIdleTimeout?.inMilliseconds,
+      'maxConcurrentDownloads': maxConcurrentDownloads,
+      'httpConnectTimeoutMs': httpConnectTimeout?.inMilliseconds,
+      'httpReadTimeoutMs': httpReadTimeout?.inMilliseconds,
+      'useOkHttp': useOkHttp,
+      'maxActivePlayers': maxActivePlayers,
+      'maxBufferBytes': maxBufferBytes,
+      'manifestCacheSize': manifestCacheSize,
+      'manifestCacheVodTtlMs': manifestCacheVodTtl?.inMilliseconds,
+      'manifestCacheOnDisk': manifestCacheOnDisk,
+      'signedQueryParameters': signedQueryParameters,
+    });
+  }
+
+  /// Replaces the headers, such as an auth token, sent with every HTTP
+  /// request of the plugin, including those of existing players.
+  static Future<void> setHttpHeaders(Map<String, String> headers) async {
+    await _channel.invokeMethod('setHttpHeaders', <String, dynamic>{
+      'headers': headers,
+    });
+  }
+
+  /// Loads the first [duration] of the media at [uri] into the media cache,
+  /// without creating a player, so that a controller created for it later
+  /// starts from the cache.
+  ///
+  /// The manifest is fetched and the tracks a player would start with are
+  /// loaded. [extension] overrides the type inferred from the uri, as for
+  /// [MediaContent.extension]. A couple of preloads run at once; the others
+  /// wait, those with the highest [priority] first. Completes with true once
+  /// the media is preloaded, or false if the preload was cancelled with
+  /// [cancelPreload] or replaced by another preload of the same [uri].
+  static Future<bool> preload(String uri,
+      {String extension,
+      Duration duration = const Duration(seconds: 5),
+      int priority = 0}) async {
+    return await _channel.invokeMethod('preload', <String, dynamic>{
+      'uri': uri,
+      'extension': extension,
+      'durationMs': duration.inMilliseconds,
+      'priority': priority,
+    });
+  }
+
+  /// Cancels the preload of [uri], if any. Data already loaded stays cached.
+  static Future<void> cancelPreload(String uri) async {
+    await _channel.invokeMethod('cancelPreload', <String, dynamic>{
+      'uri': uri,
+    });
+  }
+
+  /// Returns the hits, misses and bytes served by the shared media cache, and
+  /// the hits, misses and entries of the manifest cache.
+  static Future<Map<dynamic, dynamic>> cacheStats() async {
+    return await _channel.invokeMethod('cacheStats');
+  }
+
+  /// Returns the budget of the shared buffer segment pool, the bytes in use,
+  /// pooled for reuse and at most in use so far, and the number of segments
+  /// allocated beyond the budget by players below their minimum buffer.
+  static Future<Map<dynamic, dynamic>> allocatorStats() async {
+    return await _channel.invokeMethod('allocatorStats');
+  }
+
+  /// Turns latency tracing of method calls and player lifecycles on or off.
+  ///
+  /// While on, spans such as DRM setup, building the media source, prepare,
+  /// the wait for the player to be ready and create to initialized are kept
+  /// in a ring buffer of the last 1024 spans, see [traceDump], and emitted as
+  /// systrace sections. Turning it on clears the spans kept before. It is off
+  /// by default, and then costs next to nothing.
+  static Future<void> setTracing(bool enabled) async {
+    await _channel.invokeMethod('setTracing', <String, dynamic>{
+      'enabled': enabled,
+    });
+  }
+
+  /// Returns the recent spans by texture id, oldest first, each with its
+  /// `name`, `thread`, monotonic `startUs` and `durationUs`. Calls not made
+  /// to a player are listed under -1. With [textureId] set, only the spans of
+  /// that player are returned.
+  static Future<Map<dynamic, dynamic>> traceDump({int textureId}) async {
+    return await _channel.invokeMethod('traceDump', <String, dynamic>{
+      'textureId': textureId,
+    });
+  }
+
+  /// Returns the bitrate estimate shared by all players, together with the
+  /// estimate persisted for the current network type and when it was saved.
+  static Future<Map<dynamic, dynamic>> bandwidthEstimate() async {
+    return await _channel.invokeMethod('bandwidthEstimate');
+  }
+
+  /// Returns the quality of experience metrics of all players summed up, see
+  /// [VideoPlayerController.stats].
+  static Future<Map<dynamic, dynamic>> statsRollup() async {
+    return await _channel.invokeMethod('statsRollup');
+  }
+
+  /// Applies [operations] in order, in a single platform channel round trip.
+  ///
+  /// The operations may target several players. A failing operation does not
+  /// stop the ones after it; its error is reported in its result instead.
+  static Future<List<PlayerOperationResult>> batch(
+      List<PlayerOperation> operations) async {
+    final List<dynamic> results =
+        await _channel.invokeMethod('batch', <String, dynamic>{
+      'operations': operations
+          .map<Map<String, dynamic>>(
+              (PlayerOperation operation) => operation.toMap())
+          .toList(),
+    });
+    return results
+        .map<PlayerOperationResult>(
+            (dynamic result) => PlayerOperationResult.fromMap(result))
+        .toList();
+  }
+
+  static const EventChannel _downloadEventChannel =
+      const EventChannel('flutter.io/videoPlayer/downloadEvents');
+
+  /// Queues the download of the media at [uri] for offline playback, and
+  /// completes once its tracks are resolved.
+  ///
+  /// A download is identified by its [uri]. Once completed, controllers
+  /// playing the same uri read it from local storage only.
+  ///
+  /// Downloads run in the app process, not in a foreground service, so they
+  /// stop when the process dies and only resume once the plugin is next used
+  /// in a new process.
+  static Future<void> download(String uri,
+      {String extension, String title}) async {
+    await _channel.invokeMethod('download', <String, dynamic>{
+      'uri': uri,
+      'extension': extension,
+      'title': title,
+    });
+  }
+
+  static Future<void> pauseDownload(String uri) async {
+    await _channel.invokeMethod('pauseDownload', <String, dynamic>{'id': uri});
+  }
+
+  static Future<void> resumeDownload(String uri) async {
+    await _channel
+        .invokeMethod('resumeDownload', <String, dynamic>{'id': uri});
+  }
+
+  static Future<void> removeDownload(String uri) async {
+    await _channel
+        .invokeMethod('removeDownload', <String, dynamic>{'id': uri});
+  }
+
+  /// Returns every download of the persistent index.
+  static Future<List<DownloadInfo>> listDownloads() async {
+    final List<dynamic> downloads =
+        await _channel.invokeMethod('listDownloads');
+    return downloads
+        .map<DownloadInfo>((dynamic download) => DownloadInfo.fromMap(download))
+        .toList();
+  }
+
+  /// Reports state changes of the downloads, and their progress every second
+  /// while downloading. A removed download is reported with a null state.
+  static Stream<DownloadInfo> get downloadEvents {
+    return _downloadEventChannel
+        .receiveBroadcastStream()
+        .map<DownloadInfo>((dynamic event) {
+      final Map<dynamic, dynamic> map = event;
+      return map['event'] == 'downloadRemoved'
+          ? DownloadInfo(uri: map['id'])
+          : DownloadInfo.fromMap(map);
+    });
+  }
 }
 
 class DurationRange {
@@ -48,11 +299,17 @@ class VideoPlayerValue {
       this.isBuffering = false,
       this.volume = 1.0,
       this.speed = 1,
-      this.resolutions = const <String>[],
-      this.audios = const <String>[],
-      this.subtitles = const <String>[],
+      this.resolutions = const <TrackInfo>[],
+      this.audios = const <TrackInfo>[],
+      this.subtitles = const <TrackInfo>[],
       this.errorDescription,
-      this.autoFormat});
+      this.autoFormat,
+      this.bitrate,
+      this.playlistIndex = 0,
+      this.bufferedDuration,
+      this.bufferedBytes,
+      this.liveLatency,
+      this.stats});
 
   VideoPlayerValue.uninitialized() : this(duration: null);
 
@@ -84,11 +341,32 @@ class VideoPlayerValue {
 
   final double speed;
 
-  final List<dynamic> resolutions;
-  final List<dynamic> audios;
-  final List<dynamic> subtitles;
+  /// The video, audio and text tracks of the media, which can be passed to
+  /// [VideoPlayerController.selectTrack].
+  final List<TrackInfo> resolutions;
+  final List<TrackInfo> audios;
+  final List<TrackInfo> subtitles;
   final String autoFormat;
 
+  /// The bitrate of the current video format, reported by the native ticker.
+  final int bitrate;
+
+  /// The index of the playing item, where 0 is the [MediaContent.uri] and the
+  /// following indices are the [MediaContent.playlist] entries.
+  final int playlistIndex;
+
+  /// The media buffered ahead of the position, and the memory it occupies.
+  final Duration bufferedDuration;
+  final int bufferedBytes;
+
+  /// How far playback is behind the live edge, or null if the media is not
+  /// live. Reported with ticks, and every second for controllers with a
+  /// [VideoPlayerController.live] configuration.
+  final Duration liveLatency;
+
+  /// The latest metrics pushed every [VideoPlayerController.statsInterval].
+  final Map<dynamic, dynamic> stats;
+
   /// A description of the error if present.
   ///
   /// If [hasError] is false this is [null].
@@ -107,9 +385,9 @@ class VideoPlayerValue {
 
   VideoPlayerValue copyWith(
       {Duration duration,
-      List<dynamic> resolutions,
-      List<dynamic> audios,
-      List<dynamic> subtitles,
+      List<TrackInfo> resolutions,
+      List<TrackInfo> audios,
+      List<TrackInfo> subtitles,
       Size size,
       Duration position,
       List<DurationRange> buffered,
@@ -119,7 +397,13 @@ class VideoPlayerValue {
       double volume,
       double speed,
       String errorDescription,
-      String autoFormat}) {
+      String autoFormat,
+      int bitrate,
+      int playlistIndex,
+      Duration bufferedDuration,
+      int bufferedBytes,
+      Duration liveLatency,
+      Map<dynamic, dynamic> stats}) {
     return VideoPlayerValue(
       duration: duration ?? this.duration,
       size: size ?? this.size,
@@ -135,6 +419,12 @@ class VideoPlayerValue {
       subtitles: subtitles ?? this.subtitles,
       errorDescription: errorDescription ?? this.errorDescription,
       autoFormat: autoFormat ?? this.autoFormat,
+      bitrate: bitrate ?? this.bitrate,
+      playlistIndex: playlistIndex ?? this.playlistIndex,
+      bufferedDuration: bufferedDuration ?? this.bufferedDuration,
+      bufferedBytes: bufferedBytes ?? this.bufferedBytes,
+      liveLatency: liveLatency ?? this.liveLatency,
+      stats: stats ?? this.stats,
     );
   }
 
@@ -154,19 +444,67 @@ class VideoPlayerValue {
         'audios: [${audios.join(', ')}], '
         'subtitles: [${subtitles.join(', ')}], '
         'errorDescription: $errorDescription,'
-        'autoFormat: $autoFormat)';
+        'autoFormat: $autoFormat, '
+        'bitrate: $bitrate, '
+        'playlistIndex: $playlistIndex, '
+        'bufferedDuration: $bufferedDuration, '
+        'bufferedBytes: $bufferedBytes, '
+        'liveLatency: $liveLatency)';
   }
 }
 
+// Tags of the binary events, see `EventCodec.java`.
+const int _kTickEvent = 1;
+const int _kBufferingUpdateEvent = 2;
+const int _kAutoFormatEvent = 3;
+const int _kCompletedEvent = 4;
+const int _kItemTransitionEvent = 5;
+
 enum DataSourceType { asset, exomedia, network, file, exomediaOffline }
 
+/// Where [VideoPlayerController.seekTo] lands relative to the requested
+/// position.
+///
+/// Snapping to a keyframe avoids decoding up to the exact frame, which keeps
+/// scrubbing responsive. Only DASH, SmoothStreaming and progressive media can
+/// snap; HLS always seeks exactly.
+enum SeekMode { exact, closestKeyframe, previousKeyframe, nextKeyframe }
+
+/// How adaptive media picks the quality of the next chunk to load.
+///
+/// [throughput] is ExoPlayer's default, which follows the throughput estimate.
+/// [bola] follows the buffer level, which rides out throughput dips instead of
+/// switching down and up again. [hybrid] follows throughput with a short
+/// buffer, at startup and after rebuffering, and the buffer level otherwise.
+enum AbrStrategy { throughput, bola, hybrid }
+
+const Map<AbrStrategy, String> _kAbrStrategyNames = <AbrStrategy, String>{
+  AbrStrategy.throughput: 'throughput',
+  AbrStrategy.bola: 'bola',
+  AbrStrategy.hybrid: 'hybrid',
+};
+
+const Map<SeekMode, String> _kSeekModeNames = <SeekMode, String>{
+  SeekMode.exact: 'exact',
+  SeekMode.closestKeyframe: 'closestSync',
+  SeekMode.previousKeyframe: 'previousSync',
+  SeekMode.nextKeyframe: 'nextSync',
+};
+
 class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
   /// Constructs a [VideoPlayerController] playing a video from an asset.
   ///
   /// The name of the asset is given by the [dataSource] argument and must not be
   /// null. The [package] argument must be non-null when the asset comes from a
   /// package and null otherwise.
-  VideoPlayerController.asset(this.dataSource, {this.package})
+  VideoPlayerController.asset(this.dataSource,
+      {this.package,
+      this.tickInterval,
+      this.binaryEvents = false,
+      this.loadControl,
+      this.statsInterval,
+      this.live,
+      this.abrStrategy = AbrStrategy.throughput})
       : dataSourceType = DataSourceType.asset,
         super(VideoPlayerValue(duration: null));
 
@@ -175,13 +513,25 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
   ///
   /// The URI for the video is given by the [dataSource] argument and must not be
   /// null.
-  VideoPlayerController.network(this.dataSource)
+  VideoPlayerController.network(this.dataSource,
+      {this.tickInterval,
+      this.binaryEvents = false,
+      this.loadControl,
+      this.statsInterval,
+      this.live,
+      this.abrStrategy = AbrStrategy.throughput})
       : dataSourceType = DataSourceType.network,
         package = null,
         super(VideoPlayerValue(duration: null));
 
   VideoPlayerController.exoplayerMeidaFrameWork(this.mediaContent,
-      {bool isOffline = false})
+      {bool isOffline = false,
+      this.tickInterval,
+      this.binaryEvents = false,
+      this.loadControl,
+      this.statsInterval,
+      this.live,
+      this.abrStrategy = AbrStrategy.throughput})
       : dataSourceType = isOffline
             ? DataSourceType.exomediaOffline
             : DataSourceType.exomedia,
@@ -192,7 +542,13 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
   ///
   /// This will load the file from the file-URI given by:
   /// `'file://${file.path}'`.
-  VideoPlayerController.file(File file)
+  VideoPlayerController.file(File file,
+      {this.tickInterval,
+      this.binaryEvents = false,
+      this.loadControl,
+      this.statsInterval,
+      this.live,
+      this.abrStrategy = AbrStrategy.throughput})
       : dataSource = 'file://${file.path}',
         dataSourceType = DataSourceType.file,
         package = null,
@@ -207,6 +563,32 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
   final DataSourceType dataSourceType;
 
   final String package;
+
+  /// The cadence at which the platform side pushes position updates while
+  /// playing.
+  ///
+  /// When null, the position is polled over the method channel instead.
+  final Duration tickInterval;
+
+  /// Whether the frequent events (ticks, buffering updates, format changes,
+  /// completion and playlist transitions) are sent as packed binary events
+  /// instead of maps, which is cheaper to encode and decode at high tick rates.
+  final bool binaryEvents;
+
+  /// The buffering parameters of the player, [LoadControlProfile.standard]
+  /// when null.
+  final LoadControlProfile loadControl;
+
+  /// The cadence at which [VideoPlayerValue.stats] is refreshed, or null to
+  /// only read the metrics with [stats].
+  final Duration statsInterval;
+
+  /// Keeps live streams at a target offset behind the live edge, or null to
+  /// play them like any other media.
+  final LiveConfiguration live;
+
+  /// The adaptive bitrate strategy of the player.
+  final AbrStrategy abrStrategy;
   Timer _timer;
   bool _isDisposed = false;
   Completer<void> _creatingCompleter;
@@ -240,6 +622,7 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
           'spherical_stereo_mode': mediaContent.spherical_stereo_mode,
           "subtitlesLink": mediaContent.subtitles,
           "localMediaDRMCallbackKey": mediaContent.localMediaDRMCallbackKey,
+          'playlist': mediaContent.playlist,
         };
         break;
       case DataSourceType.network:
@@ -263,9 +646,28 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
           'spherical_stereo_mode': mediaContent.spherical_stereo_mode,
           "subtitlesLink": mediaContent.subtitles,
           "localMediaDRMCallbackKey": mediaContent.localMediaDRMCallbackKey,
+          'playlist': mediaContent.playlist,
         };
         break;
     }
+    if (tickInterval != null) {
+      dataSourceDescription['tickIntervalMs'] = tickInterval.inMilliseconds;
+    }
+    if (binaryEvents) {
+      dataSourceDescription['binaryEvents'] = true;
+    }
+    if (loadControl != null) {
+      dataSourceDescription['loadControl'] = loadControl.toMap();
+    }
+    if (statsInterval != null) {
+      dataSourceDescription['statsIntervalMs'] = statsInterval.inMilliseconds;
+    }
+    if (live != null) {
+      dataSourceDescription['live'] = live.toMap();
+    }
+    if (abrStrategy != AbrStrategy.throughput) {
+      dataSourceDescription['abrStrategy'] = _kAbrStrategyNames[abrStrategy];
+    }
 
     final Map<dynamic, dynamic> response =
         await PlayerPlugin._channel.invokeMethod(
@@ -284,7 +686,18 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
       );
     }
 
+    List<TrackInfo> toTracks(dynamic value) {
+      final List<dynamic> tracks = value;
+      return tracks
+          .map<TrackInfo>((dynamic track) => TrackInfo.fromMap(track))
+          .toList();
+    }
+
     void eventListener(dynamic event) {
+      if (event is Uint8List) {
+        _applyBinaryEvent(event);
+        return;
+      }
       final Map<dynamic, dynamic> map = event;
       switch (map['event']) {
         case 'initialized':
@@ -292,14 +705,18 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
             duration: Duration(milliseconds: map['duration']),
             size: Size(map['width']?.toDouble() ?? 0.0,
                 map['height']?.toDouble() ?? 0.0),
-            resolutions: jsonDecode(map['resolutions']),
-            subtitles: jsonDecode(map['subtitles']),
-            audios: jsonDecode(map['audios']),
+            resolutions: toTracks(map['resolutions']),
+            subtitles: toTracks(map['subtitles']),
+            audios: toTracks(map['audios']),
           );
           // print("Resolutons : ${map['resolutions']}");
           // print("Audios : ${map['audios']}");
           // print("Subtitles : ${map['subtitles']}");
-          initializingCompleter.complete(null);
+          // Media whose manifest is cached is reported initialized twice: with
+          // what was found last time, and again once the player is ready.
+          if (!initializingCompleter.isCompleted) {
+            initializingCompleter.complete(null);
+          }
           _applyLooping();
           _applyVolume();
           _applyPlayPause();
@@ -312,6 +729,9 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
           final List<dynamic> values = map['values'];
           value = value.copyWith(
             buffered: values.map<DurationRange>(toDurationRange).toList(),
+            bufferedDuration:
+                Duration(milliseconds: map['bufferedDurationMs'] ?? 0),
+            bufferedBytes: map['bufferedBytes'],
           );
           break;
         case 'bufferingStart':
@@ -322,6 +742,35 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
           break;
         case 'autoFormat':
           value = value.copyWith(autoFormat: map['autoFormat']);
+          break;
+        case 'tick':
+          final List<int> values = map['values'];
+          value = value.copyWith(
+            position: Duration(milliseconds: values[0]),
+            buffered: <DurationRange>[
+              DurationRange(
+                  const Duration(), Duration(milliseconds: values[1])),
+            ],
+            bitrate: values[2],
+            bufferedDuration: Duration(milliseconds: values[4]),
+            bufferedBytes: values[5],
+            liveLatency: _toLiveLatency(values[6]),
+          );
+          break;
+        case 'liveLatency':
+          value = value.copyWith(
+              liveLatency: Duration(milliseconds: map['latencyMs']));
+          break;
+        case 'itemTransition':
+          value = value.copyWith(
+            playlistIndex: map['index'],
+            duration: _toItemDuration(map['duration']),
+            position: const Duration(),
+          );
+          break;
+        case 'stats':
+          value = value.copyWith(stats: map['values']);
+          break;
       }
     }
 
@@ -329,6 +778,11 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
       final PlatformException e = obj;
       value = VideoPlayerValue.erroneous(e.message);
       _timer?.cancel();
+      // The player is built after `create` replies, so failing to open the
+      // media, e.g. with `drm_unsupported`, is reported here.
+      if (!initializingCompleter.isCompleted) {
+        initializingCompleter.completeError(e);
+      }
     }
 
     _eventSubscription = _eventChannelFor(_textureId)
@@ -337,6 +791,64 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
     return initializingCompleter.future;
   }
 
+  /// Decodes an event packed by `EventCodec.java`; the layouts must match.
+  void _applyBinaryEvent(Uint8List bytes) {
+    final ByteData data = ByteData.view(bytes.buffer, bytes.offsetInBytes);
+    switch (data.getUint8(0)) {
+      case _kTickEvent:
+        value = value.copyWith(
+          position: Duration(milliseconds: data.getInt64(1, Endian.little)),
+          buffered: <DurationRange>[
+            DurationRange(const Duration(),
+                Duration(milliseconds: data.getInt64(9, Endian.little))),
+          ],
+          bitrate: data.getInt32(17, Endian.little),
+          bufferedDuration:
+              Duration(milliseconds: data.getInt64(22, Endian.little)),
+          bufferedBytes: data.getInt32(30, Endian.little),
+          liveLatency: _toLiveLatency(data.getInt64(34, Endian.little)),
+        );
+        break;
+      case _kBufferingUpdateEvent:
+        value = value.copyWith(
+          buffered: <DurationRange>[
+            DurationRange(
+                Duration(milliseconds: data.getInt64(1, Endian.little)),
+                Duration(milliseconds: data.getInt64(9, Endian.little))),
+          ],
+          bufferedDuration:
+              Duration(milliseconds: data.getInt64(17, Endian.little)),
+          bufferedBytes: data.getInt32(25, Endian.little),
+        );
+        break;
+      case _kAutoFormatEvent:
+        value = value.copyWith(
+            autoFormat: '${data.getInt32(1, Endian.little)}p');
+        break;
+      case _kCompletedEvent:
+        value = value.copyWith(isPlaying: false, position: value.duration);
+        _timer?.cancel();
+        break;
+      case _kItemTransitionEvent:
+        value = value.copyWith(
+          playlistIndex: data.getInt32(1, Endian.little),
+          duration: _toItemDuration(data.getInt64(5, Endian.little)),
+          position: const Duration(),
+        );
+        break;
+    }
+  }
+
+  /// Returns null, which keeps the current duration, while the item has
+  /// none yet: it is prepared lazily or live.
+  static Duration _toItemDuration(int durationMs) {
+    return durationMs >= 0 ? Duration(milliseconds: durationMs) : null;
+  }
+
+  static Duration _toLiveLatency(int latencyMs) {
+    return latencyMs >= 0 ? Duration(milliseconds: latencyMs) : null;
+  }
+
   EventChannel _eventChannelFor(int textureId) {
     return EventChannel('flutter.io/videoPlayer/videoEvents$textureId');
   }
@@ -396,6 +908,69 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
     );
   }
 
+  /// Seeks to [position], sets the [speed] and [volume] and plays or pauses
+  /// according to [playing], in that order and in a single platform channel
+  /// round trip. Arguments left null are not changed.
+  Future<void> update(
+      {Duration position, double speed, double volume, bool playing}) async {
+    if (!value.initialized || _isDisposed) {
+      return;
+    }
+    final List<PlayerOperation> operations = <PlayerOperation>[];
+    if (position != null) {
+      if (position > value.duration) {
+        position = value.duration;
+      } else if (position < const Duration()) {
+        position = const Duration();
+      }
+      operations.add(PlayerOperation.seekTo(_textureId, position));
+    }
+    if (speed != null) {
+      speed = speed.clamp(0.25, 2.0);
+      operations.add(PlayerOperation.speed(_textureId, speed));
+    }
+    if (volume != null) {
+      volume = volume.clamp(0.0, 1.0);
+      operations.add(PlayerOperation.volume(_textureId, volume));
+    }
+    if (playing != null) {
+      operations.add(playing
+          ? PlayerOperation.play(_textureId)
+          : PlayerOperation.pause(_textureId));
+    }
+    if (operations.isEmpty) {
+      return;
+    }
+    value = value.copyWith(
+        position: position, speed: speed, volume: volume, isPlaying: playing);
+    await PlayerPlugin.batch(operations);
+    if (playing == true) {
+      _startPositionTimer();
+    } else if (playing == false) {
+      _timer?.cancel();
+    }
+  }
+
+  void _startPositionTimer() {
+    if (tickInterval != null) {
+      return;
+    }
+    _timer?.cancel();
+    _timer = Timer.periodic(
+      const Duration(milliseconds: 500),
+      (Timer timer) async {
+        if (_isDisposed) {
+          return;
+        }
+        final Duration newPosition = await position;
+        if (_isDisposed) {
+          return;
+        }
+        value = value.copyWith(position: newPosition);
+      },
+    );
+  }
+
   Future<void> _applyPlayPause() async {
     if (!value.initialized || _isDisposed) {
       return;
@@ -408,19 +983,7 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
         'play',
         <String, dynamic>{'textureId': _textureId},
       );
-      _timer = Timer.periodic(
-        const Duration(milliseconds: 500),
-        (Timer timer) async {
-          if (_isDisposed) {
-            return;
-          }
-          final Duration newPosition = await position;
-          if (_isDisposed) {
-            return;
-          }
-          value = value.copyWith(position: newPosition);
-        },
-      );
+      _startPositionTimer();
     } else {
       _timer?.cancel();
       // TODO(amirh): remove this on when the invokeMethod update makes it to stable Flutter.
@@ -517,7 +1080,13 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
     );
   }
 
-  Future<void> seekTo(Duration moment) async {
+  /// Seeks to [moment], or to a keyframe near it depending on [mode].
+  ///
+  /// While an earlier seek is still in flight, the platform side only keeps
+  /// the newest target, so a scrubber can call this as often as it likes. The
+  /// last target is always applied; end scrubbing with an [SeekMode.exact]
+  /// seek to land exactly where the user let go.
+  Future<void> seekTo(Duration moment, {SeekMode mode = SeekMode.exact}) async {
     if (_isDisposed) {
       return;
     }
@@ -532,10 +1101,21 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
     await PlayerPlugin._channel.invokeMethod('seekTo', <String, dynamic>{
       'textureId': _textureId,
       'location': moment.inMilliseconds,
+      'mode': _kSeekModeNames[mode],
     });
     value = value.copyWith(position: moment);
   }
 
+  /// Seeks to the [LiveConfiguration.targetOffset] behind the live edge, or to
+  /// the default position of the stream without a [live] configuration.
+  Future<void> seekToLiveEdge() async {
+    if (_isDisposed) {
+      return;
+    }
+    await PlayerPlugin._channel.invokeMethod(
+        'seekToLiveEdge', <String, dynamic>{'textureId': _textureId});
+  }
+
   /// Sets the audio volume of [this].
   ///
   /// [volume] indicates a value between 0.0 (silent) and 1.0 (full volume) on a
@@ -557,6 +1137,65 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
   Future<void> setAudio(String code) async {
     await _applyAudio(code);
   }
+
+  /// Plays [track] instead of letting the player choose among its group.
+  Future<void> selectTrack(TrackInfo track) async {
+    if (!value.initialized || _isDisposed) {
+      return;
+    }
+    await PlayerPlugin._channel.invokeMethod('selectTrack', <String, dynamic>{
+      'textureId': _textureId,
+      'rendererIndex': track.rendererIndex,
+      'groupIndex': track.groupIndex,
+      'trackIndex': track.trackIndex,
+    });
+  }
+
+  /// Adds [uri] to the playlist at [index], or at the end if [index] is null.
+  ///
+  /// The item is buffered ahead of time when playback approaches it, without
+  /// re-preparing the current item.
+  Future<void> addToPlaylist(String uri, {String extension, int index}) async {
+    await _invokePlaylistMethod('playlistAdd', <String, dynamic>{
+      'uri': uri,
+      'extension': extension,
+      'index': index,
+    });
+  }
+
+  Future<void> removeFromPlaylist(int index) async {
+    await _invokePlaylistMethod(
+        'playlistRemove', <String, dynamic>{'index': index});
+  }
+
+  Future<void> movePlaylistItem(int from, int to) async {
+    await _invokePlaylistMethod(
+        'playlistMove', <String, dynamic>{'from': from, 'to': to});
+  }
+
+  /// Returns the quality of experience metrics of the player: time to first
+  /// frame, rebuffer count and duration, dropped frames, bitrate switches,
+  /// bytes loaded and load errors, with histograms of the time to first
+  /// frame, rebuffer durations and load durations.
+  ///
+  /// Buffering after a seek, or while a released player restores its
+  /// decoders, is not counted as a rebuffer.
+  Future<Map<dynamic, dynamic>> stats() async {
+    if (_isDisposed) {
+      return null;
+    }
+    return await PlayerPlugin._channel.invokeMethod(
+        'stats', <String, dynamic>{'textureId': _textureId});
+  }
+
+  Future<void> _invokePlaylistMethod(
+      String method, Map<String, dynamic> arguments) async {
+    if (_isDisposed) {
+      return;
+    }
+    arguments['textureId'] = _textureId;
+    await PlayerPlugin._channel.invokeMethod(method, arguments);
+  }
 }
 
 class _VideoAppLifeCycleObserver extends Object with WidgetsBindingObserver {
@@ -670,17 +1309,21 @@ class _VideoScrubber extends StatefulWidget {
 
 class _VideoScrubberState extends State<_VideoScrubber> {
   bool _controllerWasPlaying = false;
+  Duration _scrubPosition;
 
   VideoPlayerController get controller => widget.controller;
 
   @override
   Widget build(BuildContext context) {
-    void seekToRelativePosition(Offset globalPosition) {
+    Duration positionAt(Offset globalPosition) {
       final RenderBox box = context.findRenderObject();
       final Offset tapPos = box.globalToLocal(globalPosition);
       final double relative = tapPos.dx / box.size.width;
-      final Duration position = controller.value.duration * relative;
-      controller.seekTo(position);
+      return controller.value.duration * relative;
+    }
+
+    void seekToRelativePosition(Offset globalPosition) {
+      controller.seekTo(positionAt(globalPosition));
     }
 
     return GestureDetector(
@@ -699,9 +1342,15 @@ class _VideoScrubberState extends State<_VideoScrubber> {
         if (!controller.value.initialized) {
           return;
         }
-        seekToRelativePosition(details.globalPosition);
+        // Keyframes can be shown without decoding up to the exact frame.
+        _scrubPosition = positionAt(details.globalPosition);
+        controller.seekTo(_scrubPosition, mode: SeekMode.closestKeyframe);
       },
       onHorizontalDragEnd: (DragEndDetails details) {
+        if (_scrubPosition != null) {
+          controller.seekTo(_scrubPosition);
+          _scrubPosition = null;
+        }
         if (_controllerWasPlaying) {
           controller.play();
         }